@@ -0,0 +1,412 @@
+package fr.orion.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generate the {@code module.yml} descriptor and the {@code ModuleIndex} of an Orion module.
+ * <p>
+ * The main class annotated with {@code @OrionModule} gives the descriptor, and the classes annotated with
+ * {@code @RegisterCommand}, {@code @RegisterSubcommand} and {@code @RegisterListener} are instantiated by the
+ * generated index, named after the main class with an {@code _OrionIndex} suffix, through their constructor
+ * taking the module if they declare one. The annotations are referenced by name so that this processor does not
+ * depend on the API, and are claimed by this processor.
+ */
+@SupportedAnnotationTypes({
+        OrionModuleProcessor.ORION_MODULE,
+        OrionModuleProcessor.REGISTER_COMMAND,
+        OrionModuleProcessor.REGISTER_SUBCOMMAND,
+        OrionModuleProcessor.REGISTER_LISTENER
+})
+public class OrionModuleProcessor extends AbstractProcessor {
+    static final String ORION_MODULE = "fr.orion.api.module.annotation.OrionModule";
+    static final String REGISTER_COMMAND = "fr.orion.api.module.annotation.RegisterCommand";
+    static final String REGISTER_SUBCOMMAND = "fr.orion.api.module.annotation.RegisterSubcommand";
+    static final String REGISTER_LISTENER = "fr.orion.api.module.annotation.RegisterListener";
+
+    private static final String ABSTRACT_MODULE = "fr.orion.api.module.AbstractModule";
+    private static final String COMMAND = "fr.orion.api.command.Command";
+    private static final String PARENT_COMMAND = "fr.orion.api.command.ParentCommand";
+    private static final String SUBCOMMAND_HANDLER = "fr.orion.api.command.ParentCommand.SubcommandHandler";
+    private static final String EVENT_LISTENER = "net.dv8tion.jda.api.hooks.EventListener";
+
+    private static final String INDEX_SUFFIX = "_OrionIndex";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private boolean generated = false;
+    private final Set<TypeElement> moduleConstructors = new HashSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (annotations.isEmpty() || roundEnv.processingOver()) {
+            return false;
+        }
+
+        List<TypeElement> modules = annotatedTypes(roundEnv, ORION_MODULE);
+        List<TypeElement> commands = annotatedTypes(roundEnv, REGISTER_COMMAND);
+        List<TypeElement> subcommands = annotatedTypes(roundEnv, REGISTER_SUBCOMMAND);
+        List<TypeElement> listeners = annotatedTypes(roundEnv, REGISTER_LISTENER);
+
+        if (this.generated) {
+            modules.forEach(module -> error(module, "The module index was already generated in a previous round"));
+            return true;
+        }
+        if (modules.isEmpty()) {
+            commands.forEach(command -> error(command, "@RegisterCommand requires a class annotated with @OrionModule"));
+            listeners.forEach(listener -> error(listener, "@RegisterListener requires a class annotated with @OrionModule"));
+            subcommands.forEach(subcommand -> error(subcommand, "@RegisterSubcommand requires a class annotated with @OrionModule"));
+            return true;
+        }
+        if (modules.size() > 1) {
+            modules.forEach(module -> error(module, "Only one class can be annotated with @OrionModule"));
+            return true;
+        }
+
+        TypeElement module = modules.get(0);
+        boolean valid = checkInstantiable(module, ABSTRACT_MODULE, "@OrionModule", null);
+        valid &= checkModuleSections(module);
+        for (TypeElement command : commands) {
+            valid &= checkInstantiable(command, COMMAND, "@RegisterCommand", module);
+        }
+        for (TypeElement listener : listeners) {
+            valid &= checkInstantiable(listener, EVENT_LISTENER, "@RegisterListener", module);
+        }
+
+        Map<TypeElement, List<TypeElement>> subcommandsByParent = new LinkedHashMap<>();
+        for (TypeElement subcommand : subcommands) {
+            valid &= checkInstantiable(subcommand, SUBCOMMAND_HANDLER, "@RegisterSubcommand", module);
+
+            TypeElement parent = parentOf(subcommand);
+            if (parent == null || !commands.contains(parent)) {
+                error(subcommand, "The parent of a @RegisterSubcommand must be annotated with @RegisterCommand");
+                valid = false;
+            } else if (!isSubtype(parent, PARENT_COMMAND)) {
+                error(subcommand, "The parent of a @RegisterSubcommand must extend " + PARENT_COMMAND);
+                valid = false;
+            } else {
+                subcommandsByParent.computeIfAbsent(parent, key -> new ArrayList<>()).add(subcommand);
+            }
+        }
+
+        if (!valid) {
+            return true;
+        }
+
+        this.generated = true;
+        String indexName = this.elements.getPackageOf(module).getQualifiedName().toString();
+        indexName = (indexName.isEmpty() ? "" : indexName + ".") + module.getSimpleName() + INDEX_SUFFIX;
+
+        List<Element> originating = new ArrayList<>();
+        originating.add(module);
+        originating.addAll(commands);
+        originating.addAll(subcommands);
+        originating.addAll(listeners);
+        Element[] origins = originating.toArray(new Element[0]);
+
+        try {
+            writeIndex(indexName, module, commands, subcommandsByParent, listeners, origins);
+            writeDescriptor(module, indexName, origins);
+        } catch (IOException e) {
+            error(module, "Failed to generate the module index: " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void writeIndex(String indexName, TypeElement module, List<TypeElement> commands,
+                            Map<TypeElement, List<TypeElement>> subcommandsByParent, List<TypeElement> listeners,
+                            Element[] origins) throws IOException {
+        int lastDot = indexName.lastIndexOf('.');
+        String packageName = lastDot == -1 ? "" : indexName.substring(0, lastDot);
+        String simpleName = indexName.substring(lastDot + 1);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("// Generated by ").append(OrionModuleProcessor.class.getName()).append(", do not edit\n");
+        source.append("public final class ").append(simpleName).append(" implements fr.orion.api.module.ModuleIndex {\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public fr.orion.api.module.AbstractModule createModule() {\n");
+        source.append("        return new ").append(module.getQualifiedName()).append("();\n");
+        source.append("    }\n\n");
+
+        String owner = "(" + module.getQualifiedName() + ") module";
+
+        source.append("    @Override\n");
+        source.append("    public java.util.List<fr.orion.api.command.Command> createCommands(fr.orion.api.module.AbstractModule module) {\n");
+        source.append("        java.util.List<fr.orion.api.command.Command> commands = new java.util.ArrayList<>();\n");
+        for (int i = 0; i < commands.size(); i++) {
+            TypeElement command = commands.get(i);
+            String variable = "command" + i;
+            source.append("        ").append(command.getQualifiedName()).append(' ').append(variable)
+                    .append(" = ").append(instantiate(command, owner)).append(";\n");
+            for (TypeElement subcommand : subcommandsByParent.getOrDefault(command, List.of())) {
+                source.append("        ").append(variable).append(".addSubcommand(")
+                        .append(instantiate(subcommand, owner)).append(");\n");
+            }
+            source.append("        commands.add(").append(variable).append(");\n");
+        }
+        source.append("        return commands;\n");
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public java.util.List<net.dv8tion.jda.api.hooks.EventListener> createListeners(fr.orion.api.module.AbstractModule module) {\n");
+        source.append("        java.util.List<net.dv8tion.jda.api.hooks.EventListener> listeners = new java.util.ArrayList<>();\n");
+        for (TypeElement listener : listeners) {
+            source.append("        listeners.add(").append(instantiate(listener, owner)).append(");\n");
+        }
+        source.append("        return listeners;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        try (Writer writer = this.filer.createSourceFile(indexName, origins).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private String instantiate(TypeElement type, String owner) {
+        return "new " + type.getQualifiedName() + "(" + (this.moduleConstructors.contains(type) ? owner : "") + ")";
+    }
+
+    private void writeDescriptor(TypeElement module, String indexName, Element[] origins) throws IOException {
+        Map<String, Object> values = annotationValues(module, ORION_MODULE);
+        String id = (String) values.get("id");
+        String name = (String) values.get("name");
+
+        StringBuilder yaml = new StringBuilder();
+        yaml.append("# Generated by ").append(OrionModuleProcessor.class.getName()).append(", do not edit\n");
+        yaml.append("id: ").append(quote(id)).append('\n');
+        yaml.append("name: ").append(quote(name.isEmpty() ? id : name)).append('\n');
+        yaml.append("version: ").append(quote((String) values.get("version"))).append('\n');
+        yaml.append("main: ").append(quote(module.getQualifiedName().toString())).append('\n');
+        yaml.append("index: ").append(quote(indexName)).append('\n');
+        yaml.append("description: ").append(quote((String) values.get("description"))).append('\n');
+        yaml.append("author: ").append(quote((String) values.get("author"))).append('\n');
+        yaml.append("website: ").append(quote((String) values.get("website"))).append('\n');
+        yaml.append("license: ").append(quote((String) values.get("license"))).append('\n');
+        yaml.append("dependencies: ").append(quoteAll(values.get("dependencies"))).append('\n');
+        yaml.append("softDependencies: ").append(quoteAll(values.get("softDependencies"))).append('\n');
+        yaml.append("libraries: ").append(quoteAll(values.get("libraries"))).append('\n');
+        appendActivation(yaml, (AnnotationMirror) values.get("activation"));
+        appendEventExecutor(yaml, (List<?>) values.get("eventExecutor"));
+
+        try (Writer writer = this.filer.createResource(StandardLocation.CLASS_OUTPUT, "", "module.yml", origins).openWriter()) {
+            writer.write(yaml.toString());
+        }
+    }
+
+    private List<TypeElement> annotatedTypes(RoundEnvironment roundEnv, String annotationName) {
+        TypeElement annotation = this.elements.getTypeElement(annotationName);
+        if (annotation == null) {
+            return new ArrayList<>();
+        }
+
+        List<TypeElement> annotated = new ArrayList<>(ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation)));
+        annotated.sort(Comparator.comparing(type -> type.getQualifiedName().toString()));
+        return annotated;
+    }
+
+    private void appendActivation(StringBuilder yaml, AnnotationMirror activation) {
+        Map<String, Object> values = mirrorValues(activation);
+        List<?> commands = (List<?>) values.get("commands");
+        List<?> events = (List<?>) values.get("events");
+        String schedule = (String) values.get("schedule");
+        if (commands.isEmpty() && events.isEmpty() && schedule.isEmpty()) {
+            return;
+        }
+
+        yaml.append("activation:\n");
+        yaml.append("  commands: ").append(quoteAll(commands)).append('\n');
+        String eventClasses = events.stream()
+                .map(event -> (DeclaredType) ((AnnotationValue) event).getValue())
+                .map(event -> quote(this.elements.getBinaryName((TypeElement) event.asElement()).toString()))
+                .collect(Collectors.joining(", ", "[", "]"));
+        yaml.append("  events: ").append(eventClasses).append('\n');
+        if (!schedule.isEmpty()) {
+            yaml.append("  schedule: ").append(quote(schedule)).append('\n');
+        }
+    }
+
+    private void appendEventExecutor(StringBuilder yaml, List<?> eventExecutor) {
+        if (eventExecutor.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> values = mirrorValues((AnnotationMirror) ((AnnotationValue) eventExecutor.get(0)).getValue());
+        String overflow = ((VariableElement) values.get("overflow")).getSimpleName().toString();
+        yaml.append("eventExecutor:\n");
+        yaml.append("  queueCapacity: ").append(values.get("queueCapacity")).append('\n');
+        yaml.append("  parallelism: ").append(values.get("parallelism")).append('\n');
+        yaml.append("  overflow: ").append(quote(overflow.toLowerCase(Locale.ROOT).replace('_', '-'))).append('\n');
+        yaml.append("  virtualThreads: ").append(values.get("virtualThreads")).append('\n');
+    }
+
+    /**
+     * Check the sections of {@code @OrionModule} which the loader would only reject at runtime.
+     */
+    private boolean checkModuleSections(TypeElement module) {
+        Map<String, Object> values = annotationValues(module, ORION_MODULE);
+        boolean valid = true;
+
+        String schedule = (String) mirrorValues((AnnotationMirror) values.get("activation")).get("schedule");
+        if (!schedule.isEmpty()) {
+            try {
+                Duration.parse(schedule);
+            } catch (DateTimeParseException e) {
+                error(module, "The activation schedule '" + schedule + "' is not an ISO-8601 duration such as PT30M");
+                valid = false;
+            }
+        }
+
+        List<?> eventExecutor = (List<?>) values.get("eventExecutor");
+        if (eventExecutor.size() > 1) {
+            error(module, "At most one event executor can be declared");
+            valid = false;
+        } else if (!eventExecutor.isEmpty()) {
+            Map<String, Object> executor = mirrorValues((AnnotationMirror) ((AnnotationValue) eventExecutor.get(0)).getValue());
+            if ((Integer) executor.get("queueCapacity") < 1 || (Integer) executor.get("parallelism") < 1) {
+                error(module, "The event executor queue capacity and parallelism must be at least 1");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Check that a class can be instantiated by the generated index and implements the expected type.
+     * @param module The module main class, which the constructor may take, or null to require a no-arg constructor
+     */
+    private boolean checkInstantiable(TypeElement type, String expectedType, String annotation, TypeElement module) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, annotation + " must be placed on a concrete class");
+            return false;
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, "A class annotated with " + annotation + " must be public");
+            return false;
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            error(type, "A nested class annotated with " + annotation + " must be static");
+            return false;
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .filter(constructor -> constructor.getModifiers().contains(Modifier.PUBLIC))
+                .toList();
+        boolean takesModule = module != null && constructors.stream()
+                .anyMatch(constructor -> constructor.getParameters().size() == 1
+                        && this.types.isAssignable(module.asType(), constructor.getParameters().get(0).asType()));
+        if (takesModule) {
+            this.moduleConstructors.add(type);
+        } else if (constructors.stream().noneMatch(constructor -> constructor.getParameters().isEmpty())) {
+            error(type, "A class annotated with " + annotation + (module != null
+                    ? " must have a public constructor taking " + module.getSimpleName() + ", or a public no-arg constructor"
+                    : " must have a public no-arg constructor"));
+            return false;
+        }
+        if (!isSubtype(type, expectedType)) {
+            error(type, "A class annotated with " + annotation + " must implement " + expectedType);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isSubtype(TypeElement type, String expectedType) {
+        TypeElement expected = this.elements.getTypeElement(expectedType);
+        return expected != null && this.types.isAssignable(this.types.erasure(type.asType()), this.types.erasure(expected.asType()));
+    }
+
+    private TypeElement parentOf(TypeElement subcommand) {
+        Object parent = annotationValues(subcommand, REGISTER_SUBCOMMAND).get("parent");
+        if (parent instanceof DeclaredType declaredType) {
+            return (TypeElement) declaredType.asElement();
+        }
+        return null;
+    }
+
+    private Map<String, Object> annotationValues(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return mirrorValues(mirror);
+            }
+        }
+        return new LinkedHashMap<>();
+    }
+
+    private Map<String, Object> mirrorValues(AnnotationMirror mirror) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : this.elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+        }
+        return values;
+    }
+
+    private static String quoteAll(Object values) {
+        if (!(values instanceof List<?> list)) {
+            return "[]";
+        }
+        return list.stream()
+                .map(value -> quote(String.valueOf(((AnnotationValue) value).getValue())))
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        this.messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
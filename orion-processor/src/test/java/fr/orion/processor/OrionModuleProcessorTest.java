@@ -0,0 +1,112 @@
+package fr.orion.processor;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrionModuleProcessorTest {
+    private static final JavaFileObject SHOP_MODULE = JavaFileObjects.forSourceLines("shop.ShopModule",
+            "package shop;",
+            "",
+            "import fr.orion.api.event.EventExecutorConfig.OverflowPolicy;",
+            "import fr.orion.api.module.AbstractModule;",
+            "import fr.orion.api.module.annotation.OrionModule;",
+            "import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;",
+            "",
+            "@OrionModule(id = \"shop\", version = \"1.2.0\", dependencies = {\"economy\"},",
+            "        activation = @OrionModule.Activation(commands = \"shop\", events = GuildMemberJoinEvent.class, schedule = \"PT30M\"),",
+            "        eventExecutor = @OrionModule.EventExecutor(queueCapacity = 100, overflow = OverflowPolicy.DROP_NEWEST))",
+            "public class ShopModule extends AbstractModule {",
+            "    @Override public void onEnable() {}",
+            "    @Override public void onDisable() {}",
+            "}");
+
+    private static final JavaFileObject SHOP_COMMAND = JavaFileObjects.forSourceLines("shop.ShopCommand",
+            "package shop;",
+            "",
+            "import fr.orion.api.command.ParentCommand;",
+            "import fr.orion.api.module.annotation.RegisterCommand;",
+            "",
+            "@RegisterCommand",
+            "public class ShopCommand extends ParentCommand {",
+            "    public ShopCommand(ShopModule module) {}",
+            "    @Override public String getName() { return \"shop\"; }",
+            "    @Override public String getDescription() { return \"Shop\"; }",
+            "}");
+
+    private static final JavaFileObject BUY_SUBCOMMAND = JavaFileObjects.forSourceLines("shop.BuySubcommand",
+            "package shop;",
+            "",
+            "import fr.orion.api.command.ParentCommand;",
+            "import fr.orion.api.module.annotation.RegisterSubcommand;",
+            "import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;",
+            "import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;",
+            "",
+            "@RegisterSubcommand(parent = ShopCommand.class)",
+            "public class BuySubcommand implements ParentCommand.SubcommandHandler {",
+            "    @Override public void execute(SlashCommandInteractionEvent event) {}",
+            "    @Override public SubcommandData getSubcommandData() { return new SubcommandData(\"buy\", \"Buy\"); }",
+            "}");
+
+    @Test
+    @DisplayName("Descriptor and index should be generated from the annotations")
+    public void testGeneratedModule() throws IOException {
+        Compilation compilation = compile(SHOP_MODULE, SHOP_COMMAND, BUY_SUBCOMMAND);
+        assertEquals(Compilation.Status.SUCCESS, compilation.status(), () -> "Compilation should succeed: " + compilation.diagnostics());
+
+        String descriptor = compilation.generatedFile(StandardLocation.CLASS_OUTPUT, "", "module.yml")
+                .orElseThrow().getCharContent(true).toString();
+        assertTrue(descriptor.contains("index: \"shop.ShopModule_OrionIndex\"\n"), "Descriptor should reference the index");
+        assertTrue(descriptor.contains("dependencies: [\"economy\"]\n"), "Descriptor should list the dependencies");
+        assertTrue(descriptor.contains("activation:\n  commands: [\"shop\"]\n"
+                + "  events: [\"net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent\"]\n"
+                + "  schedule: \"PT30M\"\n"), "Descriptor should declare the activation triggers");
+        assertTrue(descriptor.contains("eventExecutor:\n  queueCapacity: 100\n  parallelism: 1\n"
+                + "  overflow: \"drop-newest\"\n  virtualThreads: false\n"), "Descriptor should declare the event executor");
+
+        String index = compilation.generatedSourceFile("shop.ShopModule_OrionIndex")
+                .orElseThrow().getCharContent(true).toString();
+        assertTrue(index.contains("new shop.ShopCommand((shop.ShopModule) module)"), "Command should receive the module");
+        assertTrue(index.contains(".addSubcommand(new shop.BuySubcommand())"), "Subcommand should use its no-arg constructor");
+    }
+
+    @Test
+    @DisplayName("An invalid activation schedule should fail the compilation")
+    public void testInvalidSchedule() {
+        JavaFileObject module = JavaFileObjects.forSourceLines("shop.ShopModule",
+                "package shop;",
+                "",
+                "import fr.orion.api.module.AbstractModule;",
+                "import fr.orion.api.module.annotation.OrionModule;",
+                "",
+                "@OrionModule(id = \"shop\", activation = @OrionModule.Activation(schedule = \"30 minutes\"))",
+                "public class ShopModule extends AbstractModule {",
+                "    @Override public void onEnable() {}",
+                "    @Override public void onDisable() {}",
+                "}");
+
+        Compilation compilation = compile(module);
+        assertEquals(Compilation.Status.FAILURE, compilation.status(), "Compilation should fail");
+        assertTrue(compilation.errors().stream().map(error -> error.getMessage(null)).anyMatch(message -> message.contains("30 minutes")),
+                "Error should report the schedule");
+        assertTrue(compilation.diagnostics().stream().noneMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING
+                        && diagnostic.getMessage(null).contains("No processor claimed")),
+                "Annotations should be claimed by the processor");
+    }
+
+    private static Compilation compile(JavaFileObject... sources) {
+        return Compiler.javac()
+                .withProcessors(new OrionModuleProcessor())
+                .withOptions("-Xlint:processing")
+                .compile(sources);
+    }
+}
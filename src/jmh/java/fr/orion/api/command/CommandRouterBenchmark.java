@@ -0,0 +1,157 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the {@link CommandRouter} with the registry lookup followed by the {@link ParentCommand} subcommand lookup,
+ * resolving a mix of top-level commands and subcommands from several threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CommandRouterBenchmark {
+    private static final int COMMANDS = 50;
+    private static final int SUBCOMMANDS = 5;
+    private static final int INVOCATIONS = 1024;
+
+    private final Map<String, Command> registry = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, ParentCommand.SubcommandHandler>> subcommands = new HashMap<>();
+    private CommandRouter router;
+
+    private String[] names;
+    private String[] subcommandNames;
+
+    @Setup
+    public void setup() {
+        List<Command> commands = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++) {
+            Command command = i % 2 == 0 ? new BenchParentCommand("parent" + i) : new BenchCommand("command" + i);
+            commands.add(command);
+            this.registry.put(command.getName(), command);
+            if (command instanceof ParentCommand parentCommand) {
+                this.subcommands.put(command.getName(), new HashMap<>(parentCommand.getSubcommandHandlers()));
+            }
+        }
+        this.router = CommandRouter.compile(commands);
+
+        Random random = new Random(42);
+        this.names = new String[INVOCATIONS];
+        this.subcommandNames = new String[INVOCATIONS];
+        for (int i = 0; i < INVOCATIONS; i++) {
+            Command command = commands.get(random.nextInt(COMMANDS));
+            // Interactions carry names parsed from the gateway payload, not the registered instances
+            this.names[i] = new String(command.getName());
+            if (command instanceof ParentCommand) {
+                this.subcommandNames[i] = new String("sub" + random.nextInt(SUBCOMMANDS));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INVOCATIONS)
+    public void twoLevelLookup(Blackhole blackhole) {
+        for (int i = 0; i < INVOCATIONS; i++) {
+            Command command = this.registry.get(this.names[i]);
+            String subcommand = this.subcommandNames[i];
+            if (subcommand != null && command instanceof ParentCommand) {
+                blackhole.consume(this.subcommands.get(command.getName()).get(subcommand));
+            } else {
+                blackhole.consume(command);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INVOCATIONS)
+    public void compiledRouter(Blackhole blackhole) {
+        for (int i = 0; i < INVOCATIONS; i++) {
+            blackhole.consume(this.router.resolve(this.names[i], null, this.subcommandNames[i]));
+        }
+    }
+
+    private static class BenchCommand implements Command {
+        private final String name;
+
+        BenchCommand(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.name;
+        }
+
+        @Override
+        public SlashCommandData buildCommandData() {
+            return Commands.slash(this.name, this.name);
+        }
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+        }
+    }
+
+    private static class BenchParentCommand extends ParentCommand {
+        private final String name;
+
+        BenchParentCommand(String name) {
+            this.name = name;
+            for (int i = 0; i < SUBCOMMANDS; i++) {
+                String subcommand = "sub" + i;
+                registerSubcommand(subcommand, subcommand, new ParentCommand.SubcommandHandler() {
+                    @Override
+                    public void execute(SlashCommandInteractionEvent event) {
+                    }
+
+                    @Override
+                    public SubcommandData getSubcommandData() {
+                        return new SubcommandData(subcommand, subcommand);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String getDescription() {
+            return this.name;
+        }
+    }
+}
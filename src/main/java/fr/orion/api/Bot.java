@@ -1,11 +1,14 @@
 package fr.orion.api;
 
 import fr.orion.api.command.CommandRegistry;
+import fr.orion.api.command.CommandStats;
 import fr.orion.api.event.EventRegistry;
 import fr.orion.api.module.ModuleManager;
 import fr.orion.api.permission.PermissionManager;
 import net.dv8tion.jda.api.JDA;
 
+import java.util.List;
+
 public interface Bot {
     /**
      * Get command registry. (implementation part, not the API)
@@ -33,4 +36,12 @@ public interface Bot {
      * @return The permission manager instance
      */
     PermissionManager getPermissionManager();
+
+    /**
+     * Get the execution statistics of the commands, to find the slowest or most failing ones.
+     * @return The statistics of every executed command and subcommand
+     */
+    default List<CommandStats> getCommandStats() {
+        return getCommandRegistry().getCommandStats();
+    }
 }
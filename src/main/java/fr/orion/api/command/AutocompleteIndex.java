@@ -0,0 +1,170 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prefix index of autocomplete candidates, shareable between commands and safe for concurrent use.
+ * <p>
+ * Candidates are kept sorted by lowercase name in a skip list, so a lookup only visits the candidates matching
+ * the typed prefix. Candidates can be added and removed one by one while lookups are running. The last result
+ * of each user is cached: typing more characters narrows the cached result instead of querying the index again,
+ * as long as the index did not change.
+ */
+public final class AutocompleteIndex {
+    /**
+     * The maximum number of choices Discord accepts in an autocomplete response.
+     */
+    public static final int MAX_CHOICES = 25;
+
+    private static final long CACHE_TTL = TimeUnit.SECONDS.toNanos(30);
+    private static final int EVICTION_INTERVAL = 256;
+
+    private final NavigableMap<String, Choice> candidates = new ConcurrentSkipListMap<>();
+    private final Map<Long, CachedResult> userCache = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    /**
+     * Add a candidate, or replace the candidate with the same name and value.
+     * @param choice The candidate
+     */
+    public void add(Choice choice) {
+        this.candidates.put(keyOf(choice), choice);
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * Add a text candidate whose value is its name.
+     * @param name The candidate name
+     */
+    public void add(String name) {
+        add(new Choice(name, name));
+    }
+
+    /**
+     * Remove a candidate.
+     * @param choice The candidate
+     */
+    public void remove(Choice choice) {
+        if (this.candidates.remove(keyOf(choice)) != null) {
+            this.version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Replace the candidates by a new set, only adding the new candidates and removing the missing ones.
+     * @param choices The new candidates
+     */
+    public void replaceAll(Collection<Choice> choices) {
+        Set<String> keys = new HashSet<>();
+        for (Choice choice : choices) {
+            String key = keyOf(choice);
+            keys.add(key);
+            this.candidates.putIfAbsent(key, choice);
+        }
+        this.candidates.keySet().retainAll(keys);
+        this.version.incrementAndGet();
+    }
+
+    /**
+     * @return The number of candidates
+     */
+    public int size() {
+        return this.candidates.size();
+    }
+
+    /**
+     * Find the candidates whose name starts with a prefix, ignoring case.
+     * @param prefix The typed prefix
+     * @param limit The maximum number of candidates
+     * @return The matching candidates, sorted by name
+     */
+    public List<Choice> lookup(String prefix, int limit) {
+        String normalized = prefix.toLowerCase(Locale.ROOT);
+        List<Choice> result = new ArrayList<>(Math.min(limit, 16));
+        for (Choice choice : this.candidates.tailMap(normalized, true).values()) {
+            if (result.size() >= limit || !choice.getName().toLowerCase(Locale.ROOT).startsWith(normalized)) {
+                break;
+            }
+            result.add(choice);
+        }
+        return result;
+    }
+
+    /**
+     * Find the candidates of a user, reusing the user's previous result when possible.
+     * @param userId The id of the user typing
+     * @param prefix The typed prefix
+     * @return At most {@value #MAX_CHOICES} matching candidates
+     */
+    public List<Choice> lookup(long userId, String prefix) {
+        if ((this.lookups.incrementAndGet() & (EVICTION_INTERVAL - 1)) == 0) {
+            evictExpired();
+        }
+
+        String normalized = prefix.toLowerCase(Locale.ROOT);
+        long currentVersion = this.version.get();
+        long now = System.nanoTime();
+
+        CachedResult cached = this.userCache.get(userId);
+        if (cached != null && cached.version() == currentVersion) {
+            if (cached.prefix().equals(normalized)) {
+                return cached.choices();
+            }
+            // A complete result for a shorter prefix contains every candidate of the longer one
+            if (!cached.truncated() && normalized.startsWith(cached.prefix())) {
+                List<Choice> narrowed = cached.choices().stream()
+                        .filter(choice -> choice.getName().toLowerCase(Locale.ROOT).startsWith(normalized))
+                        .toList();
+                this.userCache.put(userId, new CachedResult(normalized, currentVersion, narrowed, false, now));
+                return narrowed;
+            }
+        }
+
+        List<Choice> found = lookup(normalized, MAX_CHOICES + 1);
+        boolean truncated = found.size() > MAX_CHOICES;
+        List<Choice> result = List.copyOf(truncated ? found.subList(0, MAX_CHOICES) : found);
+        this.userCache.put(userId, new CachedResult(normalized, currentVersion, result, truncated, now));
+        return result;
+    }
+
+    /**
+     * Answer an autocomplete interaction with the candidates matching its focused option.
+     * @param event The autocomplete interaction
+     * @return The matching candidates
+     */
+    public List<Choice> complete(CommandAutoCompleteInteractionEvent event) {
+        return lookup(event.getUser().getIdLong(), event.getFocusedOption().getValue());
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        this.userCache.values().removeIf(cached -> now - cached.createdAt() > CACHE_TTL);
+    }
+
+    private static String keyOf(Choice choice) {
+        String value = choice.getType() == OptionType.STRING ? choice.getAsString()
+                : choice.getType() == OptionType.INTEGER ? Long.toString(choice.getAsLong())
+                : Double.toString(choice.getAsDouble());
+        // Choices are ordered by name, the value only distinguishes homonyms
+        return choice.getName().toLowerCase(Locale.ROOT) + '\0' + value;
+    }
+
+    private record CachedResult(String prefix, long version, List<Choice> choices, boolean truncated, long createdAt) {}
+}
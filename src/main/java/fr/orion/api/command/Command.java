@@ -1,8 +1,12 @@
 package fr.orion.api.command;
 
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 
+import java.util.List;
+
 public interface Command {
     /**
      * Get the name of the command.
@@ -24,4 +28,21 @@ public interface Command {
      * @param event The SlashCommandInteractionEvent to handle
      */
     void execute(SlashCommandInteractionEvent event);
+    /**
+     * Get the rate limit of the command, enforced by the registry before execution.
+     * Subcommands share it, unless they declare their own rate limit.
+     * @return The rate limit, or null if the command is not limited
+     */
+    default RateLimit getRateLimit() {
+        return null;
+    }
+    /**
+     * Provide the choices of an option declared with autocomplete, called by the registry on every keystroke.
+     * Discord only waits a few seconds for the choices, use an {@link AutocompleteIndex} for large candidate sets.
+     * @param event The CommandAutoCompleteInteractionEvent to handle
+     * @return The choices to suggest, at most {@value AutocompleteIndex#MAX_CHOICES} are sent
+     */
+    default List<Choice> autoComplete(CommandAutoCompleteInteractionEvent event) {
+        return List.of();
+    }
 }
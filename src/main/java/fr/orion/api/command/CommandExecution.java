@@ -0,0 +1,107 @@
+package fr.orion.api.command;
+
+import fr.orion.api.utils.NamedThreadFactory;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs routed commands off the JDA event thread, one thread per invocation, and acknowledges the
+ * interactions of commands that did not reply within a budget.
+ * <p>
+ * Virtual threads are used when the runtime provides them, a cached pool of daemon threads otherwise.
+ */
+final class CommandExecution {
+    private static final Logger logger = LoggerFactory.getLogger(CommandExecution.class);
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService deferScheduler;
+    private final Duration deferReplyBudget;
+
+    /**
+     * @param deferReplyBudget The time a command has to reply before its interaction is deferred, or null to never defer
+     */
+    CommandExecution(Duration deferReplyBudget) {
+        this.executor = newCommandExecutor();
+        this.deferReplyBudget = deferReplyBudget;
+        this.deferScheduler = deferReplyBudget == null ? null : newDeferScheduler();
+    }
+
+    /**
+     * Execute a routed invocation asynchronously.
+     * @param route The route of the interaction
+     * @param event The interaction
+     * @param invocation The execution of the route
+     * @return false if the invocation was rejected because the command execution is shut down
+     */
+    boolean execute(CommandRouter.Route route, SlashCommandInteractionEvent event, Runnable invocation) {
+        ScheduledFuture<?> deferral = this.deferScheduler == null ? null
+                : this.deferScheduler.schedule(() -> deferIfUnanswered(event), this.deferReplyBudget.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            this.executor.execute(() -> {
+                try {
+                    invocation.run();
+                } catch (Exception e) {
+                    logger.error("Error executing command {}", route.name(), e);
+                } finally {
+                    if (deferral != null) {
+                        deferral.cancel(false);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (deferral != null) {
+                deferral.cancel(false);
+            }
+            logger.warn("Command {} rejected, command execution is shut down", route.name());
+            CommandReplies.replyEphemeral(event, "This command is unavailable while the bot is shutting down.");
+            return false;
+        }
+    }
+
+    private static void deferIfUnanswered(SlashCommandInteractionEvent event) {
+        if (event.isAcknowledged()) {
+            return;
+        }
+
+        event.deferReply().queue(null, error -> logger.debug("Failed to defer interaction {}: {}", event.getId(), error.getMessage()));
+        logger.debug("Deferred reply of command {} after its reply budget", event.getFullCommandName());
+    }
+
+    /**
+     * Stop accepting commands, commands already running are not interrupted and are still deferred
+     * once their reply budget elapsed.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+        if (this.deferScheduler != null) {
+            this.deferScheduler.shutdown();
+        }
+    }
+
+    private static ScheduledExecutorService newDeferScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("orion-command-defer", true));
+        // Deferrals of answered commands must not keep the scheduler alive once shut down
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static ExecutorService newCommandExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(new NamedThreadFactory("orion-command", true));
+        }
+    }
+}
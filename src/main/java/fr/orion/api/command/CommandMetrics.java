@@ -0,0 +1,69 @@
+package fr.orion.api.command;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation counters and latency histograms of the executed commands, by command path.
+ * Statistics are kept across module reloads, as long as the command path does not change.
+ */
+final class CommandMetrics {
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+
+    /**
+     * Record an execution.
+     * @param path The full name of the command
+     * @param nanos The execution time
+     * @param success false if the execution failed
+     */
+    void record(String path, long nanos, boolean success) {
+        Recorder recorder = this.recorders.get(path);
+        if (recorder == null) {
+            recorder = this.recorders.computeIfAbsent(path, key -> new Recorder());
+        }
+
+        recorder.latency.record(nanos);
+        if (!success) {
+            recorder.errors.increment();
+        }
+    }
+
+    /**
+     * @return The statistics of every executed command, sorted by path
+     */
+    List<CommandStats> snapshot() {
+        return this.recorders.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparing(CommandStats::path))
+                .toList();
+    }
+
+    /**
+     * @param path The full name of the command
+     * @return The statistics of the command, or null if it was never executed
+     */
+    CommandStats snapshot(String path) {
+        Recorder recorder = this.recorders.get(path);
+        return recorder == null ? null : recorder.snapshot(path);
+    }
+
+    private static final class Recorder {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        CommandStats snapshot(String path) {
+            return new CommandStats(
+                    path,
+                    this.latency.count(),
+                    this.errors.sum(),
+                    Duration.ofNanos(this.latency.percentile(50)),
+                    Duration.ofNanos(this.latency.percentile(99)),
+                    Duration.ofNanos(this.latency.max())
+            );
+        }
+    }
+}
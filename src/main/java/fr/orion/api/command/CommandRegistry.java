@@ -1,6 +1,8 @@
 package fr.orion.api.command;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public interface CommandRegistry {
     /**
@@ -15,6 +17,16 @@ public interface CommandRegistry {
      * @param command the command to unregister
      */
     void unregisterCommand(Command command);
+    /**
+     * Registers a command whose executions are tracked, such as a command of a module
+     * which must drain before being unloaded.
+     *
+     * @param command the command to register
+     * @param tracker notified around each execution and autocompletion of the command
+     */
+    default void registerCommand(Command command, ExecutionTracker tracker) {
+        registerCommand(command);
+    }
     /**
      * Gets a command by its name.
      *
@@ -28,6 +40,54 @@ public interface CommandRegistry {
      * @return a collection of all commands
      */
     Collection<Command> getCommands();
+    /**
+     * Registers a command available in a single guild only.
+     *
+     * @param guildId the id of the guild
+     * @param command the command to register
+     * @throws UnsupportedOperationException if the registry does not support guild commands
+     */
+    default void registerCommand(long guildId, Command command) {
+        throw new UnsupportedOperationException("Guild commands are not supported by " + getClass().getSimpleName());
+    }
+    /**
+     * Registers a command available in a single guild only, whose executions are tracked.
+     *
+     * @param guildId the id of the guild
+     * @param command the command to register
+     * @param tracker notified around each execution and autocompletion of the command
+     * @throws UnsupportedOperationException if the registry does not support guild commands
+     */
+    default void registerCommand(long guildId, Command command, ExecutionTracker tracker) {
+        registerCommand(guildId, command);
+    }
+    /**
+     * Unregisters a command from a guild.
+     *
+     * @param guildId the id of the guild
+     * @param command the command to unregister
+     * @throws UnsupportedOperationException if the registry does not support guild commands
+     */
+    default void unregisterCommand(long guildId, Command command) {
+        throw new UnsupportedOperationException("Guild commands are not supported by " + getClass().getSimpleName());
+    }
+    /**
+     * Gets the commands registered for a guild only.
+     *
+     * @param guildId the id of the guild
+     * @return a collection of the guild commands
+     */
+    default Collection<Command> getGuildCommands(long guildId) {
+        return Collections.emptyList();
+    }
+    /**
+     * Gets the execution statistics of the commands and subcommands.
+     *
+     * @return the statistics of every executed command, empty if the registry does not measure executions
+     */
+    default List<CommandStats> getCommandStats() {
+        return Collections.emptyList();
+    }
     /**
      * Synchronizes the commands with the Discord API.
      * This should be called after all commands have been registered or updated.
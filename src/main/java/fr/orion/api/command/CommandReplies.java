@@ -0,0 +1,36 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.interactions.callbacks.IReplyCallback;
+
+/**
+ * Replies which stay visible when the interaction was deferred in the meantime.
+ * <p>
+ * With asynchronous execution, the registry defers the interactions left unanswered after the reply budget,
+ * concurrently with the command. A plain {@code event.reply(...)} then fails and the user sees nothing.
+ * Asynchronous commands should answer through {@code event.getHook()} once {@code event.isAcknowledged()},
+ * or through this helper, which settles the race on the acknowledgement of the interaction itself.
+ */
+public final class CommandReplies {
+
+    private CommandReplies() {
+    }
+
+    /**
+     * Send an ephemeral reply, or an ephemeral followup message if the interaction is already acknowledged.
+     * @param event The interaction
+     * @param message The message to send
+     */
+    public static void replyEphemeral(IReplyCallback event, String message) {
+        if (event.isAcknowledged()) {
+            event.getHook().sendMessage(message).setEphemeral(true).queue();
+            return;
+        }
+
+        // The interaction is acknowledged at most once, a deferral winning the race makes the reply fail
+        event.reply(message).setEphemeral(true).queue(null, error -> {
+            if (error instanceof IllegalStateException) {
+                event.getHook().sendMessage(message).setEphemeral(true).queue();
+            }
+        });
+    }
+}
@@ -0,0 +1,210 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.CommandInteractionPayload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable routing table of slash command invocations.
+ * <p>
+ * Every invocable path (command, subcommand group, subcommand) is compiled into a single open addressing table
+ * when the commands change, so that routing an interaction only hashes the names already held by the event and
+ * does not allocate. Subcommands of a {@link ParentCommand} are routed directly to their handler, unless the
+ * command overrides {@link ParentCommand#execute} or {@link ParentCommand#autoComplete}, for instance to check
+ * permissions first: its subcommands are then still routed, for rate limits and statistics, but go through the
+ * command. A path without a dedicated route falls back to the {@link Command} itself.
+ * <p>
+ * Subcommand groups are not compiled, as {@link ParentCommand} does not declare any: an invocation inside a group
+ * falls back to the route of its command, which handles the group in {@link Command#execute}.
+ */
+public final class CommandRouter {
+    /**
+     * A router without any command.
+     */
+    public static final CommandRouter EMPTY = compile(List.of());
+
+    private final Route[] table;
+    private final int mask;
+    private final int size;
+
+    private CommandRouter(List<Route> routes) {
+        int capacity = Integer.highestOneBit(Math.max(2, routes.size() * 2) - 1) << 1;
+        this.table = new Route[capacity];
+        this.mask = capacity - 1;
+        this.size = routes.size();
+
+        for (Route route : routes) {
+            int index = hash(route.name(), route.group(), route.subcommand()) & this.mask;
+            while (this.table[index] != null) {
+                index = (index + 1) & this.mask;
+            }
+            this.table[index] = route;
+        }
+    }
+
+    /**
+     * Compile the routes of a set of commands. Commands are expected to have distinct names.
+     * @param commands The commands to route
+     * @return The compiled router
+     */
+    public static CommandRouter compile(Collection<? extends Command> commands) {
+        List<Route> routes = new ArrayList<>();
+
+        for (Command command : commands) {
+            routes.add(new Route(command.getName(), null, null, command.getName(), command, null));
+
+            if (command instanceof ParentCommand parentCommand) {
+                boolean intercepted = overrides(parentCommand, "execute", SlashCommandInteractionEvent.class)
+                        || overrides(parentCommand, "autoComplete", CommandAutoCompleteInteractionEvent.class);
+                for (Map.Entry<String, ParentCommand.SubcommandHandler> entry : parentCommand.getSubcommandHandlers().entrySet()) {
+                    routes.add(new Route(command.getName(), null, entry.getKey(), command.getName() + " " + entry.getKey(),
+                            command, entry.getValue(), intercepted));
+                }
+            }
+        }
+        return new CommandRouter(routes);
+    }
+
+    private static boolean overrides(ParentCommand command, String methodName, Class<?> eventType) {
+        try {
+            return command.getClass().getMethod(methodName, eventType).getDeclaringClass() != ParentCommand.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Find the route of an invocation.
+     * @param name The command name
+     * @param group The subcommand group name, or null
+     * @param subcommand The subcommand name, or null
+     * @return The route of the subcommand, or the route of the command if the subcommand has no dedicated route,
+     *         or null if the command is unknown
+     */
+    public Route resolve(String name, String group, String subcommand) {
+        if (group != null || subcommand != null) {
+            Route route = find(name, group, subcommand);
+            if (route != null) {
+                return route;
+            }
+        }
+        return find(name, null, null);
+    }
+
+    /**
+     * Find the route of a slash command or autocomplete interaction.
+     * @param event The interaction
+     * @return The route, or null if the command is unknown
+     */
+    public Route resolve(CommandInteractionPayload event) {
+        return resolve(event.getName(), event.getSubcommandGroup(), event.getSubcommandName());
+    }
+
+    /**
+     * Execute the route of a slash command interaction.
+     * @param event The interaction
+     * @return false if the command is unknown
+     */
+    public boolean dispatch(SlashCommandInteractionEvent event) {
+        Route route = resolve(event);
+        if (route == null) {
+            return false;
+        }
+        route.execute(event);
+        return true;
+    }
+
+    /**
+     * @return The number of compiled routes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    private Route find(String name, String group, String subcommand) {
+        int index = hash(name, group, subcommand) & this.mask;
+        Route route;
+        while ((route = this.table[index]) != null) {
+            if (route.name().equals(name) && Objects.equals(route.group(), group) && Objects.equals(route.subcommand(), subcommand)) {
+                return route;
+            }
+            index = (index + 1) & this.mask;
+        }
+        return null;
+    }
+
+    private static int hash(String name, String group, String subcommand) {
+        int hash = name.hashCode();
+        hash = 31 * hash + (group == null ? 0 : group.hashCode());
+        hash = 31 * hash + (subcommand == null ? 0 : subcommand.hashCode());
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A compiled invocation path.
+     * @param name The command name
+     * @param group The subcommand group name, or null
+     * @param subcommand The subcommand name, or null
+     * @param path The full name of the invocation path, such as {@code "shop buy"}
+     * @param command The command owning the path
+     * @param handler The subcommand handler, or null if the command handles the invocation itself
+     * @param intercepted true if the command overrides the dispatch of its subcommands, which then go through it
+     */
+    public record Route(String name, String group, String subcommand, String path, Command command,
+                        ParentCommand.SubcommandHandler handler, boolean intercepted) {
+
+        /**
+         * A route whose subcommand handler, if any, is invoked directly.
+         */
+        public Route(String name, String group, String subcommand, String path, Command command,
+                     ParentCommand.SubcommandHandler handler) {
+            this(name, group, subcommand, path, command, handler, false);
+        }
+
+        /**
+         * @return The rate limit of the subcommand, or of the command, or null if the route is not limited
+         */
+        public RateLimit rateLimit() {
+            RateLimit rateLimit = this.handler != null ? this.handler.getRateLimit() : null;
+            return rateLimit != null ? rateLimit : this.command.getRateLimit();
+        }
+
+        /**
+         * Execute the invocation with the subcommand handler, or the command itself.
+         * Exceptions thrown by a subcommand handler are answered with an error reply,
+         * exceptions thrown by the command itself are propagated.
+         * @param event The interaction
+         * @return false if the subcommand handler failed
+         */
+        public boolean execute(SlashCommandInteractionEvent event) {
+            if (this.handler == null || this.intercepted) {
+                this.command.execute(event);
+                return true;
+            }
+
+            try {
+                this.handler.execute(event);
+                return true;
+            } catch (Exception e) {
+                CommandReplies.replyEphemeral(event, "An error occurred while executing this command: " + e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Provide the autocomplete choices with the subcommand handler, or the command itself.
+         * @param event The autocomplete interaction
+         * @return The choices to suggest
+         */
+        public List<Choice> autoComplete(CommandAutoCompleteInteractionEvent event) {
+            return this.handler != null && !this.intercepted ? this.handler.autoComplete(event) : this.command.autoComplete(event);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package fr.orion.api.command;
+
+import java.time.Duration;
+
+/**
+ * Execution statistics of a command or subcommand.
+ *
+ * @param path The full name of the command, such as {@code "shop buy"}
+ * @param invocations The number of executions
+ * @param errors The number of executions which failed
+ * @param p50 The median execution time
+ * @param p99 The 99th percentile of the execution time
+ * @param max The longest execution time
+ */
+public record CommandStats(String path, long invocations, long errors, Duration p50, Duration p99, Duration max) {
+}
@@ -0,0 +1,215 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.interactions.commands.build.CommandData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content hashes and ids of the commands last synchronized with Discord, by scope.
+ * <p>
+ * The state is kept in memory and, when a file is given, persisted as YAML so that a restart
+ * does not push unchanged commands again.
+ */
+final class CommandSyncState {
+    private static final Logger logger = LoggerFactory.getLogger(CommandSyncState.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Map<String, Entry>> scopes = new HashMap<>();
+    private boolean dirty;
+
+    /**
+     * @param file The state file, or null to keep the state in memory only
+     */
+    CommandSyncState(Path file) {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * @param scope The synchronization scope
+     * @return The synchronized commands of the scope, by name
+     */
+    synchronized Map<String, Entry> get(String scope) {
+        return Map.copyOf(this.scopes.getOrDefault(scope, Map.of()));
+    }
+
+    /**
+     * @param scope The synchronization scope
+     * @return true if the scope was never synchronized
+     */
+    synchronized boolean isUnknown(String scope) {
+        return !this.scopes.containsKey(scope);
+    }
+
+    /**
+     * Replace the synchronized commands of a scope. The state is persisted by the next {@link #save()}.
+     * @param scope The synchronization scope
+     * @param entries The synchronized commands, by name
+     */
+    synchronized void put(String scope, Map<String, Entry> entries) {
+        this.scopes.put(scope, new TreeMap<>(entries));
+        this.dirty = true;
+    }
+
+    /**
+     * Persist the state if a scope changed since the last save, once per synchronization.
+     */
+    synchronized void save() {
+        if (this.file == null || !this.dirty) {
+            return;
+        }
+        this.dirty = false;
+
+        Map<String, Object> scopesData = new TreeMap<>();
+        this.scopes.forEach((scope, entries) -> {
+            Map<String, Object> commands = new LinkedHashMap<>();
+            entries.forEach((name, entry) -> commands.put(name, entry.toMap()));
+            scopesData.put(scope, commands);
+        });
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", FORMAT_VERSION);
+        data.put("scopes", scopesData);
+
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        try {
+            Path parent = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "command-sync", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new Yaml(options).dump(data, writer);
+            }
+            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to save command synchronization state: {}", this.file, e);
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Compute a stable content hash of a command, independent of the order in which its fields were set.
+     * @param data The command data
+     * @return The SHA-256 of the canonical JSON of the command
+     */
+    static String hash(CommandData data) {
+        StringBuilder json = new StringBuilder();
+        appendCanonical(json, data.toData().toMap());
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(json.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @param commands Commands returned by Discord
+     * @param hashes The content hashes of the commands, by name
+     * @return The entries of the commands, by name
+     */
+    static Map<String, Entry> entries(List<net.dv8tion.jda.api.interactions.commands.Command> commands, Map<String, String> hashes) {
+        Map<String, Entry> entries = new TreeMap<>();
+        for (net.dv8tion.jda.api.interactions.commands.Command command : commands) {
+            entries.put(command.getName(), new Entry(hashes.get(command.getName()), command.getId()));
+        }
+        return entries;
+    }
+
+    private static void appendCanonical(StringBuilder json, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            json.append('{');
+            new TreeMap<>(map).forEach((key, entry) -> {
+                if (json.charAt(json.length() - 1) != '{') {
+                    json.append(',');
+                }
+                appendCanonical(json, String.valueOf(key));
+                json.append(':');
+                appendCanonical(json, entry);
+            });
+            json.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            json.append('[');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    json.append(',');
+                }
+                appendCanonical(json, element);
+                first = false;
+            }
+            json.append(']');
+        } else if (value instanceof String string) {
+            json.append('"').append(string.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        } else {
+            json.append(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (this.file == null || !Files.exists(this.file)) {
+            return;
+        }
+
+        try (InputStream is = Files.newInputStream(this.file)) {
+            Map<String, Object> data = new Yaml().load(is);
+            if (data == null || !Integer.valueOf(FORMAT_VERSION).equals(data.get("version"))) {
+                logger.info("Ignoring outdated command synchronization state: {}", this.file);
+                return;
+            }
+
+            Map<String, Object> scopesData = (Map<String, Object>) data.getOrDefault("scopes", Map.of());
+            for (Map.Entry<String, Object> scope : scopesData.entrySet()) {
+                Map<String, Entry> entries = new TreeMap<>();
+                ((Map<String, Object>) scope.getValue()).forEach((name, entry) ->
+                        entries.put(name, Entry.fromMap((Map<String, Object>) entry)));
+                this.scopes.put(scope.getKey(), entries);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read command synchronization state, commands will be fully synchronized: {}", this.file, e);
+            this.scopes.clear();
+        }
+    }
+
+    /**
+     * A synchronized command.
+     * @param hash The content hash of the command data
+     * @param id The Discord id of the command
+     */
+    record Entry(String hash, String id) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hash", this.hash);
+            map.put("id", this.id);
+            return map;
+        }
+
+        static Entry fromMap(Map<String, Object> map) {
+            return new Entry(String.valueOf(map.get("hash")), String.valueOf(map.get("id")));
+        }
+    }
+}
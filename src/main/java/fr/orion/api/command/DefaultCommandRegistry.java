@@ -0,0 +1,575 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import net.dv8tion.jda.api.interactions.commands.CommandInteractionPayload;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CommandRegistry} routing slash command interactions through a {@link CommandRouter}.
+ * <p>
+ * The router is recompiled whenever a command is registered or unregistered, and dispatching an
+ * interaction only reads the current router. Registering a command replaces the command registered
+ * under the same name, and unregistering a command which was already replaced has no effect.
+ * Add the registry to JDA as an event listener to dispatch slash commands.
+ * <p>
+ * {@link #synchronizeCommands()} only sends the commands which changed since the last synchronization,
+ * compared by content hash, and skips the REST call entirely when nothing changed.
+ * <p>
+ * Commands can also be registered for a single guild. In a guild, a guild command takes precedence over the
+ * global command of the same name. All the changes made to the commands of a guild between two synchronizations
+ * are sent as one bulk update of that guild, and the updates of the different guilds are spread over time.
+ * <p>
+ * Commands run on the JDA event thread by default. With {@link #setAsyncExecution(boolean)}, each invocation runs
+ * on its own (virtual when available) thread, and interactions still unanswered after the reply budget are
+ * deferred automatically, concurrently with the command. Such commands must then answer through
+ * {@code event.getHook()} once the interaction is acknowledged, or through {@link CommandReplies}.
+ * <p>
+ * The {@link RateLimit} declared by a command or subcommand is enforced before execution, and rejected
+ * invocations receive an ephemeral reply.
+ * <p>
+ * Every execution is measured, see {@link #getCommandStats()}.
+ * <p>
+ * Autocomplete interactions are routed the same way, to {@link Command#autoComplete} or to the subcommand handler.
+ * <p>
+ * The {@link ExecutionTracker} of a command is notified around each of its executions and autocompletions,
+ * asynchronous ones included, until the command is unregistered.
+ */
+public class DefaultCommandRegistry implements CommandRegistry, EventListener {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCommandRegistry.class);
+    private static final String GLOBAL_SCOPE = "global";
+
+    private final JDA jda;
+    private final Map<String, Command> commands = new ConcurrentHashMap<>();
+    private volatile CommandRouter router = CommandRouter.EMPTY;
+    private final CommandSyncState syncState;
+    private final Object syncLock = new Object();
+    private CompletableFuture<Void> lastSync = CompletableFuture.completedFuture(null);
+    private volatile int bulkSyncThreshold = 5;
+    private final Map<Long, Map<String, Command>> guildCommands = new ConcurrentHashMap<>();
+    private final Set<Long> pendingGuildSyncs = ConcurrentHashMap.newKeySet();
+    private volatile GuildRouters guildRouters = GuildRouters.EMPTY;
+    private volatile Duration guildSyncInterval = Duration.ofMillis(100);
+    private volatile Duration deferReplyBudget = Duration.ofMillis(2500);
+    private volatile CommandExecution execution;
+    private final Map<Object, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<Command, ExecutionTracker> trackers = new ConcurrentHashMap<>();
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    /**
+     * Create a registry remembering the synchronized commands in memory only, the first synchronization
+     * after a restart overwrites every command.
+     * @param jda The JDA instance commands are synchronized with
+     */
+    public DefaultCommandRegistry(JDA jda) {
+        this(jda, null);
+    }
+
+    /**
+     * @param jda The JDA instance commands are synchronized with
+     * @param syncStateFile The file remembering the synchronized commands across restarts, or null
+     */
+    public DefaultCommandRegistry(JDA jda, Path syncStateFile) {
+        this.jda = jda;
+        this.syncState = new CommandSyncState(syncStateFile);
+    }
+
+    @Override
+    public void registerCommand(Command command) {
+        Command previous = this.commands.put(command.getName(), command);
+        if (previous != null && previous != command) {
+            logger.debug("Command {} replaced", command.getName());
+            forgetTracker(previous);
+        }
+        recompile();
+    }
+
+    @Override
+    public void registerCommand(Command command, ExecutionTracker tracker) {
+        this.trackers.put(command, tracker);
+        registerCommand(command);
+    }
+
+    @Override
+    public void unregisterCommand(Command command) {
+        if (this.commands.remove(command.getName(), command)) {
+            removeRateLimiters(command);
+            forgetTracker(command);
+            recompile();
+        }
+    }
+
+    @Override
+    public void registerCommand(long guildId, Command command) {
+        Command previous = this.guildCommands.computeIfAbsent(guildId, id -> new ConcurrentHashMap<>()).put(command.getName(), command);
+        if (previous != null && previous != command) {
+            forgetTracker(previous);
+        }
+        this.pendingGuildSyncs.add(guildId);
+        recompile(guildId);
+    }
+
+    @Override
+    public void registerCommand(long guildId, Command command, ExecutionTracker tracker) {
+        this.trackers.put(command, tracker);
+        registerCommand(guildId, command);
+    }
+
+    @Override
+    public void unregisterCommand(long guildId, Command command) {
+        Map<String, Command> commands = this.guildCommands.get(guildId);
+        if (commands != null && commands.remove(command.getName(), command)) {
+            removeRateLimiters(command);
+            forgetTracker(command);
+            this.pendingGuildSyncs.add(guildId);
+            recompile(guildId);
+        }
+    }
+
+    /**
+     * Drop the tracker of a command once it is registered nowhere anymore, so that its owner can be collected.
+     */
+    private void forgetTracker(Command command) {
+        if (this.commands.get(command.getName()) == command) {
+            return;
+        }
+        for (Map<String, Command> commands : this.guildCommands.values()) {
+            if (commands.get(command.getName()) == command) {
+                return;
+            }
+        }
+        this.trackers.remove(command);
+    }
+
+    @Override
+    public Collection<Command> getGuildCommands(long guildId) {
+        Map<String, Command> commands = this.guildCommands.get(guildId);
+        return commands == null ? Collections.emptyList() : Collections.unmodifiableCollection(commands.values());
+    }
+
+    @Override
+    public Command getCommand(String name) {
+        return this.commands.get(name);
+    }
+
+    @Override
+    public Collection<Command> getCommands() {
+        return Collections.unmodifiableCollection(this.commands.values());
+    }
+
+    /**
+     * Synchronize the changed commands with Discord. Added and modified global commands are upserted and removed
+     * ones are deleted, or all global commands are overwritten at once when there are more changes than the
+     * bulk threshold. Each guild whose commands changed then receives one bulk update.
+     * Synchronizations run one after the other, each one sending the commands registered when it starts.
+     */
+    @Override
+    public void synchronizeCommands() {
+        synchronized (this.syncLock) {
+            this.lastSync = this.lastSync.thenCompose(ignored -> synchronizeChanges())
+                    .thenCompose(ignored -> synchronizeGuilds())
+                    .thenRun(this.syncState::save)
+                    .exceptionally(error -> {
+                        logger.error("Failed to synchronize commands", error);
+                        return null;
+                    });
+        }
+    }
+
+    /**
+     * Set the delay between the updates of two guilds during a synchronization, to stay within the REST rate limits
+     * when the commands of many guilds change at once.
+     * @param guildSyncInterval The delay between two guild updates
+     */
+    public void setGuildSyncInterval(Duration guildSyncInterval) {
+        if (guildSyncInterval == null || guildSyncInterval.isNegative()) {
+            throw new IllegalArgumentException("Guild sync interval cannot be negative");
+        }
+        this.guildSyncInterval = guildSyncInterval;
+    }
+
+    /**
+     * Set how many changed commands are sent individually before a synchronization overwrites all commands
+     * with a single bulk request.
+     * @param bulkSyncThreshold The maximum number of individual upserts and deletions
+     */
+    public void setBulkSyncThreshold(int bulkSyncThreshold) {
+        if (bulkSyncThreshold < 0) {
+            throw new IllegalArgumentException("Bulk sync threshold cannot be negative");
+        }
+        this.bulkSyncThreshold = bulkSyncThreshold;
+    }
+
+    private CompletableFuture<Void> synchronizeChanges() {
+        Map<String, SlashCommandData> desired = new TreeMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (Command command : this.commands.values()) {
+            SlashCommandData data = command.buildCommandData();
+            desired.put(data.getName(), data);
+            hashes.put(data.getName(), CommandSyncState.hash(data));
+        }
+
+        Map<String, CommandSyncState.Entry> synced = this.syncState.get(GLOBAL_SCOPE);
+        List<SlashCommandData> upserts = desired.values().stream()
+                .filter(data -> {
+                    CommandSyncState.Entry entry = synced.get(data.getName());
+                    return entry == null || !entry.hash().equals(hashes.get(data.getName()));
+                })
+                .toList();
+        List<String> deletions = synced.keySet().stream()
+                .filter(name -> !desired.containsKey(name))
+                .toList();
+
+        if (upserts.isEmpty() && deletions.isEmpty() && !this.syncState.isUnknown(GLOBAL_SCOPE)) {
+            logger.debug("Commands unchanged, skipping synchronization");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (this.syncState.isUnknown(GLOBAL_SCOPE) || upserts.size() + deletions.size() > this.bulkSyncThreshold) {
+            return this.jda.updateCommands()
+                    .addCommands(desired.values())
+                    .submit()
+                    .thenAccept(commands -> {
+                        this.syncState.put(GLOBAL_SCOPE, CommandSyncState.entries(commands, hashes));
+                        logger.info("Synchronized {} commands", commands.size());
+                    });
+        }
+
+        List<CompletableFuture<net.dv8tion.jda.api.interactions.commands.Command>> upserted = upserts.stream()
+                .map(data -> this.jda.upsertCommand(data).submit())
+                .toList();
+        List<CompletableFuture<Void>> deleted = deletions.stream()
+                .map(name -> this.jda.deleteCommandById(synced.get(name).id()).submit())
+                .toList();
+
+        List<CompletableFuture<?>> pending = new ArrayList<>(upserted);
+        pending.addAll(deleted);
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    Map<String, CommandSyncState.Entry> entries = new HashMap<>(synced);
+                    deletions.forEach(entries::remove);
+                    entries.putAll(CommandSyncState.entries(upserted.stream().map(CompletableFuture::join).toList(), hashes));
+                    this.syncState.put(GLOBAL_SCOPE, entries);
+                    logger.info("Synchronized commands: {} upserted, {} deleted", upserts.size(), deletions.size());
+                });
+    }
+
+    private CompletableFuture<Void> synchronizeGuilds() {
+        List<Long> guildIds = new ArrayList<>(this.pendingGuildSyncs);
+        this.pendingGuildSyncs.removeAll(guildIds);
+        Collections.sort(guildIds);
+
+        long interval = this.guildSyncInterval.toMillis();
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+        for (int i = 0; i < guildIds.size(); i++) {
+            long guildId = guildIds.get(i);
+            Executor delayed = CompletableFuture.delayedExecutor(i * interval, TimeUnit.MILLISECONDS);
+            updates.add(CompletableFuture.supplyAsync(() -> synchronizeGuild(guildId), delayed)
+                    .thenCompose(update -> update)
+                    .exceptionally(error -> {
+                        logger.error("Failed to synchronize commands of guild {}, retrying on next synchronization", guildId, error);
+                        this.pendingGuildSyncs.add(guildId);
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private CompletableFuture<Void> synchronizeGuild(long guildId) {
+        String scope = "guild:" + guildId;
+        Guild guild = this.jda.getGuildById(guildId);
+        if (guild == null) {
+            logger.warn("Cannot synchronize commands of unknown guild {}", guildId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Map<String, SlashCommandData> desired = new TreeMap<>();
+        Map<String, String> hashes = new HashMap<>();
+        for (Command command : getGuildCommands(guildId)) {
+            SlashCommandData data = command.buildCommandData();
+            desired.put(data.getName(), data);
+            hashes.put(data.getName(), CommandSyncState.hash(data));
+        }
+
+        Map<String, String> synced = new HashMap<>();
+        this.syncState.get(scope).forEach((name, entry) -> synced.put(name, entry.hash()));
+        if (synced.equals(hashes) && !this.syncState.isUnknown(scope)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return guild.updateCommands()
+                .addCommands(desired.values())
+                .submit()
+                .thenAccept(commands -> {
+                    this.syncState.put(scope, CommandSyncState.entries(commands, hashes));
+                    logger.debug("Synchronized {} commands of guild {}", commands.size(), guildId);
+                });
+    }
+
+    /**
+     * Run commands off the JDA event thread, so that blocking commands do not delay other interactions.
+     * @param asyncExecution true to run each command on its own thread, false to run them on the event thread
+     */
+    public synchronized void setAsyncExecution(boolean asyncExecution) {
+        if (asyncExecution == (this.execution != null)) {
+            return;
+        }
+
+        if (asyncExecution) {
+            this.execution = new CommandExecution(this.deferReplyBudget);
+        } else {
+            this.execution.shutdown();
+            this.execution = null;
+        }
+    }
+
+    /**
+     * Set how long an asynchronously executed command may run before its interaction is deferred,
+     * Discord requiring an acknowledgement within 3 seconds.
+     * @param deferReplyBudget The reply budget, or null to never defer automatically
+     */
+    public synchronized void setDeferReplyBudget(Duration deferReplyBudget) {
+        if (deferReplyBudget != null && deferReplyBudget.isNegative()) {
+            throw new IllegalArgumentException("Defer reply budget cannot be negative");
+        }
+        this.deferReplyBudget = deferReplyBudget;
+
+        if (this.execution != null) {
+            this.execution.shutdown();
+            this.execution = new CommandExecution(deferReplyBudget);
+        }
+    }
+
+    /**
+     * Stop the asynchronous command execution, if enabled. Running commands are not interrupted.
+     */
+    public void shutdown() {
+        setAsyncExecution(false);
+    }
+
+    /**
+     * Get the router of the registered commands.
+     * @return The current router
+     */
+    public CommandRouter getRouter() {
+        return this.router;
+    }
+
+    /**
+     * Execute the command targeted by a slash command interaction.
+     * @param event The interaction
+     * @return false if no registered command matches the interaction
+     */
+    public boolean dispatch(SlashCommandInteractionEvent event) {
+        CommandRouter.Route route = resolve(event);
+        if (route == null) {
+            return false;
+        }
+        if (isRateLimited(route, event)) {
+            return true;
+        }
+
+        ExecutionTracker tracker = this.trackers.getOrDefault(route.command(), ExecutionTracker.NONE);
+        tracker.beginExecution();
+
+        CommandExecution execution = this.execution;
+        if (execution == null) {
+            try {
+                executeMeasured(route, event);
+            } finally {
+                tracker.endExecution();
+            }
+        } else if (!execution.execute(route, event, () -> {
+            try {
+                executeMeasured(route, event);
+            } finally {
+                tracker.endExecution();
+            }
+        })) {
+            tracker.endExecution();
+        }
+        return true;
+    }
+
+    /**
+     * Answer an autocomplete interaction with the choices of the command it targets. Choices are computed on the
+     * calling thread, since Discord only waits a few seconds for them.
+     * @param event The autocomplete interaction
+     * @return false if no registered command matches the interaction
+     */
+    public boolean dispatch(CommandAutoCompleteInteractionEvent event) {
+        CommandRouter.Route route = resolve(event);
+        if (route == null) {
+            return false;
+        }
+
+        ExecutionTracker tracker = this.trackers.getOrDefault(route.command(), ExecutionTracker.NONE);
+        List<Choice> choices;
+        tracker.beginExecution();
+        try {
+            choices = route.autoComplete(event);
+        } catch (Exception e) {
+            logger.error("Failed to autocomplete command: {}", route.path(), e);
+            choices = List.of();
+        } finally {
+            tracker.endExecution();
+        }
+        if (choices.size() > AutocompleteIndex.MAX_CHOICES) {
+            choices = choices.subList(0, AutocompleteIndex.MAX_CHOICES);
+        }
+        event.replyChoices(choices).queue();
+        return true;
+    }
+
+    private void executeMeasured(CommandRouter.Route route, SlashCommandInteractionEvent event) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            success = route.execute(event);
+        } finally {
+            this.metrics.record(route.path(), System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public List<CommandStats> getCommandStats() {
+        return this.metrics.snapshot();
+    }
+
+    /**
+     * Get the execution statistics of a command or subcommand.
+     * @param path The full name of the command, such as {@code "shop buy"}
+     * @return The statistics, or null if the command was never executed
+     */
+    public CommandStats getCommandStats(String path) {
+        return this.metrics.snapshot(path);
+    }
+
+    private boolean isRateLimited(CommandRouter.Route route, SlashCommandInteractionEvent event) {
+        RateLimit rateLimit = route.rateLimit();
+        if (rateLimit == null) {
+            return false;
+        }
+
+        long key = switch (rateLimit.scope()) {
+            case USER -> event.getUser().getIdLong();
+            case GUILD -> event.isFromGuild() ? event.getGuild().getIdLong() : event.getUser().getIdLong();
+            case GLOBAL -> 0L;
+        };
+
+        // Subcommands without their own rate limit share the permits of their parent command
+        Object owner = route.handler() != null && route.handler().getRateLimit() != null ? route.handler() : route.command();
+        long wait = this.rateLimiters.computeIfAbsent(owner, target -> new RateLimiter(rateLimit)).tryAcquire(key);
+        if (wait == 0) {
+            return false;
+        }
+
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        event.reply("This command is rate limited, try again in " + seconds + "s.").setEphemeral(true).queue();
+        return true;
+    }
+
+    private void removeRateLimiters(Command command) {
+        this.rateLimiters.remove(command);
+        if (command instanceof ParentCommand parentCommand) {
+            parentCommand.getSubcommandHandlers().values().forEach(this.rateLimiters::remove);
+        }
+    }
+
+    private CommandRouter.Route resolve(CommandInteractionPayload event) {
+        if (event.isFromGuild()) {
+            CommandRouter guildRouter = this.guildRouters.get(event.getGuild().getIdLong());
+            CommandRouter.Route route = guildRouter == null ? null : guildRouter.resolve(event);
+            if (route != null) {
+                return route;
+            }
+        }
+        return this.router.resolve(event);
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        if (event instanceof SlashCommandInteractionEvent slashEvent && !dispatch(slashEvent)) {
+            logger.warn("Received unknown command: {}", slashEvent.getName());
+        } else if (event instanceof CommandAutoCompleteInteractionEvent autoCompleteEvent && !dispatch(autoCompleteEvent)) {
+            logger.warn("Received autocomplete for unknown command: {}", autoCompleteEvent.getName());
+        }
+    }
+
+    private synchronized void recompile() {
+        this.router = CommandRouter.compile(this.commands.values());
+    }
+
+    private synchronized void recompile(long guildId) {
+        Map<String, Command> commands = this.guildCommands.getOrDefault(guildId, Map.of());
+        this.guildRouters = this.guildRouters.with(guildId, commands.isEmpty() ? null : CommandRouter.compile(commands.values()));
+    }
+
+    /**
+     * Immutable routers of the guild commands, looked up by binary search on the sorted guild ids.
+     * Only the router of the modified guild is compiled again on changes.
+     */
+    private record GuildRouters(long[] guildIds, CommandRouter[] routers) {
+        static final GuildRouters EMPTY = new GuildRouters(new long[0], new CommandRouter[0]);
+
+        GuildRouters with(long guildId, CommandRouter router) {
+            int index = Arrays.binarySearch(this.guildIds, guildId);
+            if (index >= 0 && router != null) {
+                CommandRouter[] routers = this.routers.clone();
+                routers[index] = router;
+                return new GuildRouters(this.guildIds, routers);
+            }
+            if (index >= 0) {
+                long[] guildIds = new long[this.guildIds.length - 1];
+                CommandRouter[] routers = new CommandRouter[guildIds.length];
+                System.arraycopy(this.guildIds, 0, guildIds, 0, index);
+                System.arraycopy(this.guildIds, index + 1, guildIds, index, guildIds.length - index);
+                System.arraycopy(this.routers, 0, routers, 0, index);
+                System.arraycopy(this.routers, index + 1, routers, index, routers.length - index);
+                return new GuildRouters(guildIds, routers);
+            }
+            if (router == null) {
+                return this;
+            }
+
+            int insertion = -index - 1;
+            long[] guildIds = new long[this.guildIds.length + 1];
+            CommandRouter[] routers = new CommandRouter[guildIds.length];
+            System.arraycopy(this.guildIds, 0, guildIds, 0, insertion);
+            System.arraycopy(this.guildIds, insertion, guildIds, insertion + 1, this.guildIds.length - insertion);
+            System.arraycopy(this.routers, 0, routers, 0, insertion);
+            System.arraycopy(this.routers, insertion, routers, insertion + 1, this.routers.length - insertion);
+            guildIds[insertion] = guildId;
+            routers[insertion] = router;
+            return new GuildRouters(guildIds, routers);
+        }
+
+        CommandRouter get(long guildId) {
+            int index = Arrays.binarySearch(this.guildIds, guildId);
+            return index < 0 ? null : this.routers[index];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package fr.orion.api.command;
+
+/**
+ * Notified around the executions of a command, so that its owner knows when none of them is running anymore,
+ * such as a module waiting for its commands to drain before its classes are unloaded.
+ */
+public interface ExecutionTracker {
+    /**
+     * A tracker ignoring every execution.
+     */
+    ExecutionTracker NONE = new ExecutionTracker() {
+        @Override
+        public void beginExecution() {
+        }
+
+        @Override
+        public void endExecution() {
+        }
+    };
+
+    /**
+     * Mark the start of an execution. Must be paired with {@link #endExecution()}.
+     */
+    void beginExecution();
+
+    /**
+     * Mark the end of an execution started with {@link #beginExecution()}.
+     */
+    void endExecution();
+}
@@ -0,0 +1,90 @@
+package fr.orion.api.command;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of durations in nanoseconds.
+ * <p>
+ * Each power of two is split in {@value #SUB_BUCKETS} buckets, bounding the error of a percentile to 12.5%.
+ * Recording a value only increments one atomic counter, concurrently with other recordings and snapshots.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos The duration to record
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        this.buckets.incrementAndGet(indexOf(value));
+        this.count.increment();
+        this.max.accumulate(value);
+    }
+
+    /**
+     * @return The number of recorded durations
+     */
+    long count() {
+        return this.count.sum();
+    }
+
+    /**
+     * @return The longest recorded duration
+     */
+    long max() {
+        return this.max.get();
+    }
+
+    /**
+     * Estimate a percentile from the current counts.
+     * @param percentile The percentile, between 0 and 100
+     * @return The upper bound of the bucket holding the percentile, capped by the maximum
+     */
+    long percentile(double percentile) {
+        long total = 0;
+        long[] counts = new long[this.buckets.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
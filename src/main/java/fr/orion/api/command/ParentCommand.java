@@ -1,11 +1,15 @@
 package fr.orion.api.command;
 
+import net.dv8tion.jda.api.events.interaction.command.CommandAutoCompleteInteractionEvent;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -29,6 +33,25 @@ public abstract class ParentCommand implements Command {
         registerSubcommand(name, description, null, handler);
     }
 
+    /**
+     * Add a subcommand described by its handler. Used by the generated module index.
+     * @param handler The subcommand handler, providing the subcommand data
+     */
+    public void addSubcommand(SubcommandHandler handler) {
+        SubcommandData data = handler.getSubcommandData();
+        this.subcommands.put(data.getName(), new SubcommandInfo(data, handler));
+    }
+
+    /**
+     * Get the handlers of the registered subcommands.
+     * @return The handlers, by subcommand name
+     */
+    public Map<String, SubcommandHandler> getSubcommandHandlers() {
+        Map<String, SubcommandHandler> handlers = new HashMap<>();
+        this.subcommands.forEach((name, info) -> handlers.put(name, info.handler));
+        return Collections.unmodifiableMap(handlers);
+    }
+
     @Override
     public SlashCommandData buildCommandData() {
         SlashCommandData commandData = Commands.slash(getName(), getDescription());
@@ -45,27 +68,50 @@ public abstract class ParentCommand implements Command {
         String subcommandName = event.getSubcommandName();
 
         if (subcommandName == null) {
-            event.reply("This command requires a subcommand.").setEphemeral(true).queue();
+            CommandReplies.replyEphemeral(event, "This command requires a subcommand.");
             return;
         }
 
         SubcommandInfo info = this.subcommands.get(subcommandName);
         if (info == null) {
-            event.reply("Unknown subcommand: " + subcommandName).setEphemeral(true).queue();
+            CommandReplies.replyEphemeral(event, "Unknown subcommand: " + subcommandName);
             return;
         }
 
         try {
             info.handler.execute(event);
         } catch (Exception e) {
-            event.reply("An error occurred while executing this command: " + e.getMessage())
-                    .setEphemeral(true).queue();
+            CommandReplies.replyEphemeral(event, "An error occurred while executing this command: " + e.getMessage());
         }
     }
 
+    @Override
+    public List<Choice> autoComplete(CommandAutoCompleteInteractionEvent event) {
+        String subcommandName = event.getSubcommandName();
+        SubcommandInfo info = subcommandName == null ? null : this.subcommands.get(subcommandName);
+        return info == null ? List.of() : info.handler.autoComplete(event);
+    }
+
     public interface SubcommandHandler {
         void execute(SlashCommandInteractionEvent event);
         SubcommandData getSubcommandData();
+
+        /**
+         * Get the rate limit of the subcommand.
+         * @return The rate limit, or null to use the rate limit of the parent command
+         */
+        default RateLimit getRateLimit() {
+            return null;
+        }
+
+        /**
+         * Provide the choices of an option of the subcommand declared with autocomplete.
+         * @param event The autocomplete interaction
+         * @return The choices to suggest
+         */
+        default List<Choice> autoComplete(CommandAutoCompleteInteractionEvent event) {
+            return List.of();
+        }
     }
 
     private record SubcommandInfo(SubcommandData subcommandData, SubcommandHandler handler) {}
@@ -0,0 +1,48 @@
+package fr.orion.api.command;
+
+import java.time.Duration;
+
+/**
+ * Rate limit of a command or subcommand: at most {@code permits} invocations per {@code period} for each
+ * user, guild, or for everyone, with the permits refilling continuously over the period.
+ *
+ * @param permits The number of invocations allowed in a burst
+ * @param period The time needed to refill every permit
+ * @param scope Who shares the permits
+ */
+public record RateLimit(int permits, Duration period, Scope scope) {
+
+    public RateLimit {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Rate limit permits must be at least 1");
+        }
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Rate limit period must be positive");
+        }
+        if (scope == null) {
+            throw new IllegalArgumentException("Rate limit scope cannot be null");
+        }
+    }
+
+    /**
+     * Create a cooldown, allowing one invocation per period.
+     * @param cooldown The time between two invocations
+     * @param scope Who shares the cooldown
+     * @return The rate limit
+     */
+    public static RateLimit cooldown(Duration cooldown, Scope scope) {
+        return new RateLimit(1, cooldown, scope);
+    }
+
+    /**
+     * Who shares the permits of a rate limit.
+     */
+    public enum Scope {
+        /** Each user has their own permits. */
+        USER,
+        /** Each guild has its own permits, direct messages are limited per user. */
+        GUILD,
+        /** Everyone shares the same permits. */
+        GLOBAL
+    }
+}
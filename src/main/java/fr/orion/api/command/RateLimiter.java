@@ -0,0 +1,87 @@
+package fr.orion.api.command;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets of a {@link RateLimit}, keyed by snowflake id.
+ * <p>
+ * Each bucket is a single atomic "theoretical arrival time" (generic cell rate algorithm), updated with
+ * compare-and-set. A bucket which refilled completely holds no information anymore: such idle buckets are
+ * evicted regularly, so the number of buckets stays bounded by the number of recently active keys.
+ */
+public final class RateLimiter {
+    private static final int EVICTION_INTERVAL = 1024;
+
+    private final RateLimit rateLimit;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final LongSupplier clock;
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger acquisitions = new AtomicInteger();
+
+    /**
+     * @param rateLimit The rate limit to enforce
+     */
+    public RateLimiter(RateLimit rateLimit) {
+        this(rateLimit, System::nanoTime);
+    }
+
+    RateLimiter(RateLimit rateLimit, LongSupplier clock) {
+        this.rateLimit = rateLimit;
+        this.emissionInterval = Math.max(1, rateLimit.period().toNanos() / rateLimit.permits());
+        this.burstTolerance = this.emissionInterval * rateLimit.permits();
+        this.clock = clock;
+    }
+
+    /**
+     * Take a permit for a key.
+     * @param key The snowflake id of the user or guild, or 0 for a global limit
+     * @return 0 if a permit was taken, otherwise the nanoseconds until a permit is available
+     */
+    public long tryAcquire(long key) {
+        if ((this.acquisitions.incrementAndGet() & (EVICTION_INTERVAL - 1)) == 0) {
+            evictIdle();
+        }
+
+        long now = this.clock.getAsLong();
+        AtomicLong bucket = this.buckets.computeIfAbsent(key, id -> new AtomicLong(now));
+
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + this.emissionInterval;
+            long excess = next - now - this.burstTolerance;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Remove the buckets which refilled completely.
+     */
+    public void evictIdle() {
+        long now = this.clock.getAsLong();
+        this.buckets.entrySet().removeIf(entry -> entry.getValue().get() - now <= 0);
+    }
+
+    /**
+     * @return The number of buckets currently held
+     */
+    public int size() {
+        return this.buckets.size();
+    }
+
+    /**
+     * @return The enforced rate limit
+     */
+    public RateLimit getRateLimit() {
+        return this.rateLimit;
+    }
+}
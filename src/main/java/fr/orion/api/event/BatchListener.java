@@ -0,0 +1,19 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+
+import java.util.List;
+
+/**
+ * Handler of the event batches of a {@link BatchedListener}.
+ *
+ * @param <T> The event type
+ */
+@FunctionalInterface
+public interface BatchListener<T extends GenericEvent> {
+    /**
+     * Handle a batch of events.
+     * @param events The events, in arrival order, never empty
+     */
+    void onBatch(List<T> events);
+}
@@ -0,0 +1,216 @@
+package fr.orion.api.event;
+
+import fr.orion.api.utils.NamedThreadFactory;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Listener receiving events of one type in batches, so that storage-heavy listeners can amortize their writes.
+ * <p>
+ * A batch is delivered as soon as it holds {@code maxBatchSize} events, or {@code maxDelay} after its first event.
+ * With a coalescing key, an event replaces the pending event of the same key, such as the latest presence of a
+ * user, and the size bound counts distinct keys. Batches hold at most {@code maxBatchSize} events and are delivered
+ * one at a time, in order, on a shared pool of daemon threads, so that a slow batch listener never holds the
+ * dispatching thread.
+ * <p>
+ * {@link #close()} delivers the pending events; modules close their batched listeners when they are unregistered.
+ *
+ * @param <T> The event type
+ */
+public final class BatchedListener<T extends GenericEvent> implements EventListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchedListener.class);
+
+    private final Class<T> eventType;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final Function<? super T, ?> coalescingKey;
+    private final BatchListener<T> listener;
+
+    private final Object bufferLock = new Object();
+    private final Object deliveryLock = new Object();
+    private List<T> events = new ArrayList<>();
+    private Map<Object, T> coalesced = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean fullBatchQueued;
+
+    private BatchedListener(Class<T> eventType, int maxBatchSize, Duration maxDelay,
+                            Function<? super T, ?> coalescingKey, BatchListener<T> listener) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (maxDelay == null || maxDelay.isNegative() || maxDelay.isZero()) {
+            throw new IllegalArgumentException("Batch delay must be positive");
+        }
+        this.eventType = eventType;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.coalescingKey = coalescingKey;
+        this.listener = listener;
+    }
+
+    /**
+     * Create a listener receiving every event in batches.
+     * @param eventType The event type, including its subtypes
+     * @param maxBatchSize The number of events delivering a batch
+     * @param maxDelay The time after which a batch is delivered even if not full
+     * @param listener The batch listener
+     * @param <T> The event type
+     * @return The batched listener, to register in the event registry
+     */
+    public static <T extends GenericEvent> BatchedListener<T> of(Class<T> eventType, int maxBatchSize, Duration maxDelay,
+                                                                 BatchListener<T> listener) {
+        return new BatchedListener<>(eventType, maxBatchSize, maxDelay, null, listener);
+    }
+
+    /**
+     * Create a listener receiving the latest event of each key in batches.
+     * @param eventType The event type, including its subtypes
+     * @param maxBatchSize The number of distinct keys delivering a batch
+     * @param maxDelay The time after which a batch is delivered even if not full
+     * @param coalescingKey The key of an event, such as the id of the user it concerns
+     * @param listener The batch listener
+     * @param <T> The event type
+     * @return The batched listener, to register in the event registry
+     */
+    public static <T extends GenericEvent> BatchedListener<T> coalescing(Class<T> eventType, int maxBatchSize, Duration maxDelay,
+                                                                         Function<? super T, ?> coalescingKey, BatchListener<T> listener) {
+        return new BatchedListener<>(eventType, maxBatchSize, maxDelay, coalescingKey, listener);
+    }
+
+    /**
+     * @return The type of the batched events
+     */
+    public Class<T> getEventType() {
+        return this.eventType;
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        if (!this.eventType.isInstance(event)) {
+            return;
+        }
+
+        T typed = this.eventType.cast(event);
+        boolean deliverFull = false;
+        synchronized (this.bufferLock) {
+            int size;
+            if (this.coalescingKey != null) {
+                this.coalesced.put(this.coalescingKey.apply(typed), typed);
+                size = this.coalesced.size();
+            } else {
+                this.events.add(typed);
+                size = this.events.size();
+            }
+
+            if (size >= this.maxBatchSize) {
+                deliverFull = !this.fullBatchQueued;
+                this.fullBatchQueued = true;
+            } else if (size == 1) {
+                this.scheduledFlush = Scheduler.TIMER.schedule(() -> Scheduler.DELIVERY.execute(this::flush),
+                        this.maxDelay.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (deliverFull) {
+            Scheduler.DELIVERY.execute(this::deliverFullBatches);
+        }
+    }
+
+    /**
+     * Deliver the pending events now, on the calling thread.
+     */
+    public void flush() {
+        synchronized (this.deliveryLock) {
+            List<T> batch;
+            while (!(batch = takeBatch(false)).isEmpty()) {
+                deliver(batch);
+            }
+        }
+    }
+
+    private void deliverFullBatches() {
+        synchronized (this.deliveryLock) {
+            List<T> batch;
+            while (!(batch = takeBatch(true)).isEmpty()) {
+                deliver(batch);
+            }
+        }
+    }
+
+    private void deliver(List<T> batch) {
+        try {
+            this.listener.onBatch(batch);
+        } catch (RuntimeException e) {
+            logger.error("Batch listener failed to handle {} {}", batch.size(), this.eventType.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Deliver the pending events once the listener is unregistered. The listener can be registered again afterwards.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Take the oldest pending events, at most {@code maxBatchSize} of them.
+     * @param fullOnly Whether to take nothing unless a full batch is pending
+     */
+    private List<T> takeBatch(boolean fullOnly) {
+        synchronized (this.bufferLock) {
+            int size = this.coalescingKey != null ? this.coalesced.size() : this.events.size();
+            if (fullOnly && size < this.maxBatchSize) {
+                // The next full batch queues a new delivery
+                this.fullBatchQueued = false;
+                return List.of();
+            }
+
+            List<T> batch;
+            if (this.coalescingKey != null) {
+                batch = new ArrayList<>(Math.min(size, this.maxBatchSize));
+                Iterator<T> pending = this.coalesced.values().iterator();
+                while (pending.hasNext() && batch.size() < this.maxBatchSize) {
+                    batch.add(pending.next());
+                    pending.remove();
+                }
+            } else {
+                List<T> taken = this.events.subList(0, Math.min(size, this.maxBatchSize));
+                batch = new ArrayList<>(taken);
+                taken.clear();
+            }
+
+            // Remaining events keep the timer of the batch they arrived in
+            if (size <= this.maxBatchSize && this.scheduledFlush != null) {
+                this.scheduledFlush.cancel(false);
+                this.scheduledFlush = null;
+            }
+            return List.copyOf(batch);
+        }
+    }
+
+    /**
+     * Shared threads of the batched listeners, created on first use.
+     */
+    private static final class Scheduler {
+        private static final ScheduledExecutorService TIMER =
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("orion-event-batch-timer", true));
+        private static final ExecutorService DELIVERY =
+                Executors.newCachedThreadPool(new NamedThreadFactory("orion-event-batch", true));
+    }
+}
@@ -0,0 +1,258 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link EventRegistry} delivering each event only to the listeners subscribed to its type.
+ * <p>
+ * The registry is the single listener added to JDA. Each registered listener subscribes to a set of event
+ * types: the events of the {@link ListenerAdapter} methods it overrides, or every event for a plain
+ * {@link EventListener}. The listeners of an event class are resolved once, on its first occurrence, and
+ * kept until the registrations change, so dispatching an event is a map lookup and a loop over its own
+ * listeners. Add the registry to JDA as an event listener to dispatch events.
+ * <p>
+ * Listeners registered with an {@link EventFilter} on guilds or channels are indexed by those ids, so that a
+ * listener is never invoked for the events of other guilds or channels.
+ */
+public class DefaultEventRegistry implements EventRegistry, EventListener {
+    private static final Logger logger = LoggerFactory.getLogger(DefaultEventRegistry.class);
+
+    private volatile DispatchTable table = new DispatchTable(new Registration[0]);
+
+    @Override
+    public void registerListener(EventListener listener) {
+        registerListener(listener, getSubscribedTypes(listener), EventFilter.ANY);
+    }
+
+    @Override
+    public void registerListener(EventListener listener, Set<Class<? extends GenericEvent>> eventTypes) {
+        registerListener(listener, eventTypes, EventFilter.ANY);
+    }
+
+    @Override
+    public void registerListener(EventListener listener, EventFilter filter) {
+        registerListener(listener, getSubscribedTypes(listener), filter);
+    }
+
+    @Override
+    public synchronized void registerListener(EventListener listener, Set<Class<? extends GenericEvent>> eventTypes, EventFilter filter) {
+        List<Registration> registrations = new ArrayList<>(Arrays.asList(this.table.registrations));
+        registrations.removeIf(registration -> registration.listener() == listener);
+        registrations.add(new Registration(listener, eventTypes.toArray(new Class<?>[0]), filter));
+        this.table = new DispatchTable(registrations.toArray(new Registration[0]));
+    }
+
+    @Override
+    public synchronized void unregisterListener(EventListener listener) {
+        List<Registration> registrations = new ArrayList<>(Arrays.asList(this.table.registrations));
+        if (registrations.removeIf(registration -> registration.listener() == listener)) {
+            this.table = new DispatchTable(registrations.toArray(new Registration[0]));
+        }
+    }
+
+    @Override
+    public void unregisterListener(EventListener listener, EventFilter filter) {
+        unregisterListener(listener);
+    }
+
+    @Override
+    public void registerListeners(EventListener... listeners) {
+        for (EventListener listener : listeners) {
+            registerListener(listener);
+        }
+    }
+
+    @Override
+    public void unregisterListeners(EventListener... listeners) {
+        for (EventListener listener : listeners) {
+            unregisterListener(listener);
+        }
+    }
+
+    @Override
+    public Collection<EventListener> getRegisteredListeners() {
+        return Arrays.stream(this.table.registrations).map(Registration::listener).toList();
+    }
+
+    /**
+     * @return The number of registered listeners
+     */
+    public int size() {
+        return this.table.registrations.length;
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        Handlers handlers = this.table.handlers(event.getClass());
+        long guildId = handlers.byGuild.isEmpty() && handlers.byChannel.isEmpty() ? EventFilter.NO_ID : EventFilter.guildIdOf(event);
+        long channelId = handlers.byChannel.isEmpty() ? EventFilter.NO_ID : EventFilter.channelIdOf(event);
+
+        deliver(handlers.unfiltered, event, guildId, channelId);
+        if (guildId != EventFilter.NO_ID) {
+            deliver(handlers.byGuild.get(guildId), event, guildId, channelId);
+        }
+        if (channelId != EventFilter.NO_ID) {
+            deliver(handlers.byChannel.get(channelId), event, guildId, channelId);
+        }
+    }
+
+    private static void deliver(Registration[] registrations, GenericEvent event, long guildId, long channelId) {
+        for (Registration registration : registrations) {
+            if (!registration.filter().test(event, guildId, channelId)) {
+                continue;
+            }
+            try {
+                registration.listener().onEvent(event);
+            } catch (RuntimeException e) {
+                logger.error("Listener {} failed to handle {}", registration.listener().getClass().getName(), event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /**
+     * Find the event types a listener handles.
+     * @param listener The listener
+     * @return The parameter types of the {@link ListenerAdapter} methods overridden by the listener,
+     *         the type of a {@link BatchedListener}, or {@link GenericEvent} if the listener may handle any event
+     */
+    public static Set<Class<? extends GenericEvent>> getSubscribedTypes(EventListener listener) {
+        if (listener instanceof BatchedListener<?> batchedListener) {
+            return Set.of(batchedListener.getEventType());
+        }
+        if (!(listener instanceof ListenerAdapter)) {
+            return Set.of(GenericEvent.class);
+        }
+
+        Set<Class<? extends GenericEvent>> types = new HashSet<>();
+        for (Class<?> type = listener.getClass(); type != ListenerAdapter.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())
+                        || method.getParameterCount() != 1 || !GenericEvent.class.isAssignableFrom(method.getParameterTypes()[0])) {
+                    continue;
+                }
+                if (method.getName().equals("onEvent")) {
+                    // The adapter dispatch itself is replaced, nothing can be assumed about the handled events
+                    return Set.of(GenericEvent.class);
+                }
+                if (isAdapterMethod(method)) {
+                    types.add(method.getParameterTypes()[0].asSubclass(GenericEvent.class));
+                }
+            }
+        }
+        return types;
+    }
+
+    private static boolean isAdapterMethod(Method method) {
+        try {
+            ListenerAdapter.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A listener, the event types it subscribed to and its filter.
+     */
+    private record Registration(EventListener listener, Class<?>[] eventTypes, EventFilter filter) {
+
+        boolean accepts(Class<?> eventClass) {
+            if (!this.filter.acceptsType(eventClass)) {
+                return false;
+            }
+            for (Class<?> eventType : this.eventTypes) {
+                if (eventType.isAssignableFrom(eventClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the registrations, with the handlers of each event class seen so far.
+     */
+    private static final class DispatchTable {
+        private final Registration[] registrations;
+        private final Map<Class<?>, Handlers> handlers = new ConcurrentHashMap<>();
+
+        private DispatchTable(Registration[] registrations) {
+            this.registrations = registrations;
+        }
+
+        private Handlers handlers(Class<?> eventClass) {
+            Handlers cached = this.handlers.get(eventClass);
+            return cached != null ? cached : this.handlers.computeIfAbsent(eventClass, this::resolve);
+        }
+
+        private Handlers resolve(Class<?> eventClass) {
+            List<Registration> unfiltered = new ArrayList<>();
+            Map<Long, List<Registration>> byGuild = new TreeMap<>();
+            Map<Long, List<Registration>> byChannel = new TreeMap<>();
+
+            for (Registration registration : this.registrations) {
+                if (!registration.accepts(eventClass)) {
+                    continue;
+                }
+                // Index by the most selective condition, the other conditions are checked on delivery
+                EventFilter filter = registration.filter();
+                if (!filter.channelIds().isEmpty()) {
+                    filter.channelIds().forEach(id -> byChannel.computeIfAbsent(id, key -> new ArrayList<>()).add(registration));
+                } else if (!filter.guildIds().isEmpty()) {
+                    filter.guildIds().forEach(id -> byGuild.computeIfAbsent(id, key -> new ArrayList<>()).add(registration));
+                } else {
+                    unfiltered.add(registration);
+                }
+            }
+            return new Handlers(unfiltered.toArray(new Registration[0]), SnowflakeIndex.of(byGuild), SnowflakeIndex.of(byChannel));
+        }
+    }
+
+    /**
+     * The registrations accepting an event class: without guild or channel condition, and indexed by guild or channel.
+     */
+    private record Handlers(Registration[] unfiltered, SnowflakeIndex byGuild, SnowflakeIndex byChannel) {}
+
+    /**
+     * Registrations by snowflake, in sorted arrays searched without boxing the ids.
+     */
+    private record SnowflakeIndex(long[] ids, Registration[][] registrations) {
+        private static final Registration[] NONE = new Registration[0];
+
+        static SnowflakeIndex of(Map<Long, List<Registration>> registrations) {
+            long[] ids = new long[registrations.size()];
+            Registration[][] values = new Registration[registrations.size()][];
+            int index = 0;
+            for (Map.Entry<Long, List<Registration>> entry : registrations.entrySet()) {
+                ids[index] = entry.getKey();
+                values[index++] = entry.getValue().toArray(NONE);
+            }
+            return new SnowflakeIndex(ids, values);
+        }
+
+        boolean isEmpty() {
+            return this.ids.length == 0;
+        }
+
+        Registration[] get(long id) {
+            int index = Arrays.binarySearch(this.ids, id);
+            return index >= 0 ? this.registrations[index] : NONE;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package fr.orion.api.event;
+
+import fr.orion.api.utils.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded executor delivering the events of a single module, so that a slow listener only delays its own module.
+ * <p>
+ * Events wait in a queue of fixed capacity and are delivered by at most {@code parallelism} workers, started
+ * when events arrive and stopped when the queue is empty. When the queue is full, the {@link EventExecutorConfig.OverflowPolicy}
+ * decides which event is dropped, or makes the dispatching thread wait. Every task is either run or discarded,
+ * so that callers can release what they acquired for it.
+ */
+public final class EventExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(EventExecutor.class);
+
+    private final String name;
+    private final EventExecutorConfig config;
+    private final ExecutorService workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = this.lock.newCondition();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private final Map<Object, Pending> pendingByKey = new HashMap<>();
+    private int activeWorkers;
+    private int maxQueueDepth;
+    private boolean shutdown;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param name The executor name, used for its threads and statistics
+     * @param config The executor configuration
+     */
+    public EventExecutor(String name, EventExecutorConfig config) {
+        this.name = name;
+        this.config = config;
+        this.workers = newWorkers(name, config.virtualThreads());
+    }
+
+    /**
+     * Queue a task for delivery.
+     * @param key The key identifying the task for coalescing, or null if it cannot be coalesced
+     * @param task The delivery
+     * @param onDiscard Called instead of the task if the task is dropped, replaced or rejected
+     */
+    public void execute(Object key, Runnable task, Runnable onDiscard) {
+        List<Runnable> discarded = new ArrayList<>(1);
+        boolean startWorker = false;
+
+        this.lock.lock();
+        try {
+            if (!this.shutdown && this.queue.size() >= this.config.queueCapacity()) {
+                switch (this.config.overflowPolicy()) {
+                    case DROP_NEWEST -> {
+                        this.dropped.increment();
+                        discarded.add(onDiscard);
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        Pending oldest = this.queue.pollFirst();
+                        this.pendingByKey.remove(oldest.key, oldest);
+                        this.dropped.increment();
+                        discarded.add(oldest.onDiscard);
+                    }
+                    case BLOCK -> {
+                        if (!awaitRoom()) {
+                            discarded.add(onDiscard);
+                            return;
+                        }
+                    }
+                    case COALESCE -> {
+                        Pending pending = key != null ? this.pendingByKey.get(key) : null;
+                        if (pending != null) {
+                            discarded.add(pending.onDiscard);
+                            pending.task = task;
+                            pending.onDiscard = onDiscard;
+                            this.coalesced.increment();
+                        } else {
+                            this.dropped.increment();
+                            discarded.add(onDiscard);
+                        }
+                        return;
+                    }
+                }
+            }
+            if (this.shutdown) {
+                discarded.add(onDiscard);
+                return;
+            }
+
+            Pending pending = new Pending(key, task, onDiscard);
+            this.queue.addLast(pending);
+            if (key != null && this.config.overflowPolicy() == EventExecutorConfig.OverflowPolicy.COALESCE) {
+                this.pendingByKey.put(key, pending);
+            }
+            this.maxQueueDepth = Math.max(this.maxQueueDepth, this.queue.size());
+
+            if (this.activeWorkers < this.config.parallelism()) {
+                this.activeWorkers++;
+                startWorker = true;
+            }
+        } finally {
+            this.lock.unlock();
+            discarded.forEach(EventExecutor::discard);
+        }
+
+        if (startWorker) {
+            try {
+                this.workers.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shut down concurrently, never deliver on the dispatching thread
+                abandonWorker();
+            }
+        }
+    }
+
+    /**
+     * Give up a worker which could not be started. Without any other worker, nothing delivers
+     * the queued events anymore, so they are discarded.
+     */
+    private void abandonWorker() {
+        List<Runnable> discarded = new ArrayList<>();
+        this.lock.lock();
+        try {
+            this.activeWorkers--;
+            if (this.activeWorkers == 0) {
+                Pending pending;
+                while ((pending = this.queue.pollFirst()) != null) {
+                    discarded.add(pending.onDiscard);
+                    this.dropped.increment();
+                }
+                this.pendingByKey.clear();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        discarded.forEach(EventExecutor::discard);
+    }
+
+    /**
+     * Wait for room in the queue, with the lock held.
+     * @return false if the executor was shut down or the thread interrupted while waiting
+     */
+    private boolean awaitRoom() {
+        try {
+            while (!this.shutdown && this.queue.size() >= this.config.queueCapacity()) {
+                this.notFull.await();
+            }
+            return !this.shutdown;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.dropped.increment();
+            return false;
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            this.lock.lock();
+            try {
+                Pending pending = this.queue.pollFirst();
+                if (pending == null) {
+                    this.activeWorkers--;
+                    return;
+                }
+                this.pendingByKey.remove(pending.key, pending);
+                this.notFull.signal();
+                task = pending.task;
+            } finally {
+                this.lock.unlock();
+            }
+
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // Errors included, such as a NoClassDefFoundError from an unloaded module: the worker must
+                // keep draining, or the events already queued would never be delivered nor discarded
+                logger.error("Event delivery failed in executor {}", this.name, t);
+            }
+            this.executed.increment();
+        }
+    }
+
+    private static void discard(Runnable onDiscard) {
+        try {
+            onDiscard.run();
+        } catch (RuntimeException e) {
+            logger.error("Failed to discard event delivery", e);
+        }
+    }
+
+    /**
+     * @return The number of events currently waiting
+     */
+    public int getQueueDepth() {
+        this.lock.lock();
+        try {
+            return this.queue.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return The queue statistics of this executor
+     */
+    public EventExecutorStats getStats() {
+        this.lock.lock();
+        try {
+            return new EventExecutorStats(this.name, this.queue.size(), this.maxQueueDepth, this.config.queueCapacity(),
+                    this.executed.sum(), this.dropped.sum(), this.coalesced.sum());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting events. Events already queued are still delivered, and blocked dispatchers are released.
+     */
+    public void shutdown() {
+        this.lock.lock();
+        try {
+            this.shutdown = true;
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        this.workers.shutdown();
+    }
+
+    private static ExecutorService newWorkers(String name, boolean virtualThreads) {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads are not available, events of {} are delivered on platform threads", name);
+            }
+        }
+        return Executors.newCachedThreadPool(new NamedThreadFactory("orion-events-" + name, true));
+    }
+
+    /**
+     * A queued delivery, whose task is replaced when a newer event is coalesced into it.
+     */
+    private static final class Pending {
+        private final Object key;
+        private Runnable task;
+        private Runnable onDiscard;
+
+        private Pending(Object key, Runnable task, Runnable onDiscard) {
+            this.key = key;
+            this.task = task;
+            this.onDiscard = onDiscard;
+        }
+    }
+}
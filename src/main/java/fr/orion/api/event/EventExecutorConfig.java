@@ -0,0 +1,82 @@
+package fr.orion.api.event;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration of the {@link EventExecutor} of a module, declared in the {@code eventExecutor} section of its descriptor.
+ *
+ * <h2>Example YAML structure:</h2>
+ * <pre>{@code
+ * eventExecutor:
+ *   queueCapacity: 1000
+ *   parallelism: 2
+ *   overflow: "drop-oldest"
+ *   virtualThreads: true
+ * }
+ * </pre>
+ *
+ * @param queueCapacity  The maximum number of events waiting for delivery
+ * @param parallelism    The maximum number of events delivered at the same time, 1 to keep the events in order
+ * @param overflowPolicy What happens to an event arriving when the queue is full
+ * @param virtualThreads Whether to deliver events on virtual threads, when the runtime provides them
+ */
+public record EventExecutorConfig(int queueCapacity, int parallelism, OverflowPolicy overflowPolicy, boolean virtualThreads) {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    public EventExecutorConfig {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Event queue capacity must be at least 1");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Event executor parallelism must be at least 1");
+        }
+        if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Event overflow policy cannot be null");
+        }
+    }
+
+    /**
+     * Parse the {@code eventExecutor} section of a module descriptor.
+     * @param value The raw section, may be null
+     * @return The parsed configuration, or null if the section is missing
+     * @throws IllegalArgumentException if the section is malformed
+     */
+    public static EventExecutorConfig fromRaw(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Event executor section must be a map");
+        }
+
+        Object overflow = map.get("overflow");
+        return new EventExecutorConfig(
+                toInt(map.get("queueCapacity"), DEFAULT_QUEUE_CAPACITY),
+                toInt(map.get("parallelism"), 1),
+                overflow != null ? OverflowPolicy.valueOf(overflow.toString().toUpperCase(Locale.ROOT).replace('-', '_')) : OverflowPolicy.DROP_OLDEST,
+                Boolean.parseBoolean(String.valueOf(map.get("virtualThreads")))
+        );
+    }
+
+    private static int toInt(Object value, int defaultValue) {
+        return value == null ? defaultValue : Integer.parseInt(value.toString());
+    }
+
+    /**
+     * What happens to an event arriving when the queue of an executor is full.
+     */
+    public enum OverflowPolicy {
+        /** The oldest waiting event is dropped to make room. */
+        DROP_OLDEST,
+        /** The arriving event is dropped. */
+        DROP_NEWEST,
+        /** The dispatching thread waits for room in the queue. */
+        BLOCK,
+        /**
+         * The arriving event replaces the waiting event of the same coalescing key, or is dropped if there is none
+         * or if the event has no key. Keys are supplied by the module, see {@code AbstractModule#getCoalescingKey}.
+         */
+        COALESCE
+    }
+}
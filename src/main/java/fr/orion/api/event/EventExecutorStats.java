@@ -0,0 +1,16 @@
+package fr.orion.api.event;
+
+/**
+ * Queue statistics of an {@link EventExecutor}.
+ *
+ * @param name          The executor name, the module id for module executors
+ * @param queueDepth    The number of events currently waiting
+ * @param maxQueueDepth The highest number of events waiting at once
+ * @param queueCapacity The maximum number of events waiting
+ * @param executed      The number of events delivered
+ * @param dropped       The number of events dropped because the queue was full
+ * @param coalesced     The number of events replaced by a newer event of the same listener and type
+ */
+public record EventExecutorStats(String name, int queueDepth, int maxQueueDepth, int queueCapacity,
+                                 long executed, long dropped, long coalesced) {
+}
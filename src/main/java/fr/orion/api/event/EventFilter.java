@@ -0,0 +1,221 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.channel.GenericChannelEvent;
+import net.dv8tion.jda.api.events.guild.GenericGuildEvent;
+import net.dv8tion.jda.api.events.guild.member.GenericGuildMemberEvent;
+import net.dv8tion.jda.api.events.message.GenericMessageEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.events.message.react.GenericMessageReactionEvent;
+import net.dv8tion.jda.api.interactions.Interaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Declarative conditions an event must meet to reach a listener. Each non-empty condition must be met.
+ * <p>
+ * Guilds and channels are matched against the guild and channel of message, channel, guild and interaction
+ * events. The author is the author of a message, the user of an interaction, reaction or member event.
+ * Events without a guild, channel or author never match a condition on it.
+ *
+ * @param guildIds The ids of the accepted guilds, or empty to accept any guild
+ * @param channelIds The ids of the accepted channels, or empty to accept any channel
+ * @param eventTypes The accepted event types, including their subtypes, or empty to accept any event
+ * @param author The accepted kind of author
+ */
+public record EventFilter(Set<Long> guildIds, Set<Long> channelIds, Set<Class<? extends GenericEvent>> eventTypes, Author author) {
+    /**
+     * A filter accepting every event.
+     */
+    public static final EventFilter ANY = new EventFilter(Set.of(), Set.of(), Set.of(), Author.ANY);
+
+    /**
+     * The id of a missing guild or channel.
+     */
+    static final long NO_ID = -1L;
+
+    public EventFilter {
+        if (guildIds == null || channelIds == null || eventTypes == null) {
+            throw new IllegalArgumentException("Event filter conditions cannot be null, use an empty set instead");
+        }
+        if (author == null) {
+            throw new IllegalArgumentException("Event filter author cannot be null, use Author.ANY instead");
+        }
+        guildIds = Set.copyOf(guildIds);
+        channelIds = Set.copyOf(channelIds);
+        eventTypes = Set.copyOf(eventTypes);
+    }
+
+    /**
+     * Create a filter accepting the events of some guilds.
+     * @param guildIds The ids of the guilds
+     * @return The filter
+     */
+    public static EventFilter guilds(long... guildIds) {
+        return ANY.withGuilds(guildIds);
+    }
+
+    /**
+     * Create a filter accepting the events of some channels.
+     * @param channelIds The ids of the channels
+     * @return The filter
+     */
+    public static EventFilter channels(long... channelIds) {
+        return ANY.withChannels(channelIds);
+    }
+
+    /**
+     * @param guildIds The ids of the accepted guilds
+     * @return A copy of this filter only accepting these guilds
+     */
+    public EventFilter withGuilds(long... guildIds) {
+        return new EventFilter(toSet(guildIds), this.channelIds, this.eventTypes, this.author);
+    }
+
+    /**
+     * @param channelIds The ids of the accepted channels
+     * @return A copy of this filter only accepting these channels
+     */
+    public EventFilter withChannels(long... channelIds) {
+        return new EventFilter(this.guildIds, toSet(channelIds), this.eventTypes, this.author);
+    }
+
+    /**
+     * @param eventTypes The accepted event types
+     * @return A copy of this filter only accepting these event types
+     */
+    @SafeVarargs
+    public final EventFilter withEventTypes(Class<? extends GenericEvent>... eventTypes) {
+        // Copied element by element, the varargs array must not escape
+        List<Class<? extends GenericEvent>> types = new ArrayList<>(eventTypes.length);
+        for (Class<? extends GenericEvent> eventType : eventTypes) {
+            types.add(eventType);
+        }
+        return withEventTypes(types);
+    }
+
+    /**
+     * @param eventTypes The accepted event types
+     * @return A copy of this filter only accepting these event types
+     */
+    public EventFilter withEventTypes(Collection<? extends Class<? extends GenericEvent>> eventTypes) {
+        return new EventFilter(this.guildIds, this.channelIds, Set.copyOf(eventTypes), this.author);
+    }
+
+    /**
+     * @param author The accepted kind of author
+     * @return A copy of this filter only accepting this kind of author
+     */
+    public EventFilter withAuthor(Author author) {
+        return new EventFilter(this.guildIds, this.channelIds, this.eventTypes, author);
+    }
+
+    /**
+     * Check whether an event meets every condition of this filter.
+     * @param event The event
+     * @return true if the event is accepted
+     */
+    public boolean test(GenericEvent event) {
+        return acceptsType(event.getClass()) && test(event, guildIdOf(event), channelIdOf(event));
+    }
+
+    /**
+     * Check the guild, channel and author conditions, the event type being already accepted.
+     */
+    boolean test(GenericEvent event, long guildId, long channelId) {
+        if (!this.guildIds.isEmpty() && !this.guildIds.contains(guildId)) {
+            return false;
+        }
+        if (!this.channelIds.isEmpty() && !this.channelIds.contains(channelId)) {
+            return false;
+        }
+        if (this.author == Author.ANY) {
+            return true;
+        }
+
+        Boolean bot = isBotAuthor(event);
+        return bot != null && bot == (this.author == Author.BOT);
+    }
+
+    boolean acceptsType(Class<?> eventClass) {
+        if (this.eventTypes.isEmpty()) {
+            return true;
+        }
+        for (Class<? extends GenericEvent> eventType : this.eventTypes) {
+            if (eventType.isAssignableFrom(eventClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static long guildIdOf(GenericEvent event) {
+        if (event instanceof GenericGuildEvent guildEvent) {
+            return guildEvent.getGuild().getIdLong();
+        }
+        if (event instanceof GenericMessageEvent messageEvent) {
+            return messageEvent.isFromGuild() ? messageEvent.getGuild().getIdLong() : NO_ID;
+        }
+        if (event instanceof Interaction interaction) {
+            return interaction.getGuild() != null ? interaction.getGuild().getIdLong() : NO_ID;
+        }
+        if (event instanceof GenericChannelEvent channelEvent) {
+            return channelEvent.isFromGuild() ? channelEvent.getGuild().getIdLong() : NO_ID;
+        }
+        return NO_ID;
+    }
+
+    static long channelIdOf(GenericEvent event) {
+        if (event instanceof GenericMessageEvent messageEvent) {
+            return messageEvent.getChannel().getIdLong();
+        }
+        if (event instanceof Interaction interaction) {
+            return interaction.getChannelIdLong();
+        }
+        if (event instanceof GenericChannelEvent channelEvent) {
+            return channelEvent.getChannel().getIdLong();
+        }
+        return NO_ID;
+    }
+
+    private static Boolean isBotAuthor(GenericEvent event) {
+        if (event instanceof MessageReceivedEvent messageEvent) {
+            return messageEvent.getAuthor().isBot();
+        }
+        if (event instanceof MessageUpdateEvent messageEvent) {
+            return messageEvent.getAuthor().isBot();
+        }
+        if (event instanceof Interaction interaction) {
+            return interaction.getUser().isBot();
+        }
+        if (event instanceof GenericGuildMemberEvent memberEvent) {
+            return memberEvent.getUser().isBot();
+        }
+        if (event instanceof GenericMessageReactionEvent reactionEvent) {
+            return reactionEvent.getUser() != null ? reactionEvent.getUser().isBot() : null;
+        }
+        return null;
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        return Arrays.stream(ids).boxed().collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * The kind of author an event must have.
+     */
+    public enum Author {
+        /** Any author, and events without author. */
+        ANY,
+        /** Bot accounts only. */
+        BOT,
+        /** User accounts only. */
+        HUMAN
+    }
+}
@@ -1,7 +1,12 @@
 package fr.orion.api.event;
 
+import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 public interface EventRegistry {
     /**
      * Register a listener to receive events.
@@ -9,12 +14,68 @@ public interface EventRegistry {
      * @param listener The listener to register
      */
     void registerListener(EventListener listener);
+    /**
+     * Register a listener to receive only the events of some types.
+     * Registries which do not index listeners by event type deliver every event to it.
+     *
+     * @param listener The listener to register
+     * @param eventTypes The event types the listener handles, including their subtypes
+     */
+    default void registerListener(EventListener listener, Set<Class<? extends GenericEvent>> eventTypes) {
+        registerListener(listener);
+    }
+    /**
+     * Register a listener to receive only the events accepted by a filter.
+     *
+     * @param listener The listener to register
+     * @param filter The conditions the events must meet
+     */
+    default void registerListener(EventListener listener, EventFilter filter) {
+        registerListener(listener, Set.of(GenericEvent.class), filter);
+    }
+    /**
+     * Register a listener to receive only the events of some types accepted by a filter.
+     * Registries which do not index filters register a wrapper testing each event against the filter;
+     * unregister it with {@link #unregisterListener(EventListener, EventFilter)}.
+     *
+     * @param listener The listener to register
+     * @param eventTypes The event types the listener handles, including their subtypes
+     * @param filter The conditions the events must meet
+     */
+    default void registerListener(EventListener listener, Set<Class<? extends GenericEvent>> eventTypes, EventFilter filter) {
+        registerListener(EventFilter.ANY.equals(filter) ? listener : new FilteredListener(listener, filter), eventTypes);
+    }
+    /**
+     * Register a listener receiving events in batches. Close it after unregistering it to deliver its pending events.
+     *
+     * @param listener The batched listener to register
+     */
+    default void registerBatchListener(BatchedListener<?> listener) {
+        registerListener(listener, Set.of(listener.getEventType()));
+    }
     /**
      * Unregister a listener to stop receiving events.
      *
      * @param listener The listener to unregister
      */
     void unregisterListener(EventListener listener);
+    /**
+     * Unregister a listener registered with a filter.
+     *
+     * @param listener The listener to unregister
+     * @param filter The filter the listener was registered with
+     */
+    default void unregisterListener(EventListener listener, EventFilter filter) {
+        unregisterListener(EventFilter.ANY.equals(filter) ? listener : new FilteredListener(listener, filter));
+    }
+    /**
+     * Get the registered listeners, as registered, wrappers included.
+     *
+     * @return The registered listeners, empty if the registry does not expose them
+     */
+    default Collection<EventListener> getRegisteredListeners() {
+        return List.of();
+    }
     /**
      * Register multiple listeners to receive events.
      *
@@ -0,0 +1,27 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+/**
+ * Listener only forwarding the events accepted by a filter, used by registries which do not index filters.
+ * Two wrappers of the same listener and filter are equal, so that a registry comparing its listeners with
+ * {@code equals} can unregister the wrapper it was given.
+ *
+ * @param listener The wrapped listener
+ * @param filter The conditions the events must meet
+ */
+record FilteredListener(EventListener listener, EventFilter filter) implements ListenerWrapper {
+
+    @Override
+    public EventListener getListener() {
+        return this.listener;
+    }
+
+    @Override
+    public void onEvent(GenericEvent event) {
+        if (this.filter.test(event)) {
+            this.listener.onEvent(event);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.hooks.EventListener;
+
+/**
+ * A listener forwarding events to another listener, such as the wrappers registered on behalf of modules.
+ */
+public interface ListenerWrapper extends EventListener {
+    /**
+     * @return The wrapped listener
+     */
+    EventListener getListener();
+}
@@ -2,11 +2,22 @@ package fr.orion.api.module;
 
 import fr.orion.api.Bot;
 import fr.orion.api.command.Command;
+import fr.orion.api.command.ExecutionTracker;
 import fr.orion.api.config.ModuleConfig;
 import fr.orion.api.config.YamlModuleConfig;
+import fr.orion.api.event.BatchedListener;
+import fr.orion.api.event.DefaultEventRegistry;
+import fr.orion.api.event.EventExecutor;
+import fr.orion.api.event.EventExecutorConfig;
+import fr.orion.api.event.EventExecutorStats;
+import fr.orion.api.event.EventFilter;
+import fr.orion.api.event.EventRegistry;
+import fr.orion.api.event.ListenerWrapper;
 import fr.orion.api.permission.PermissionManager;
 import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.GenericEvent;
 import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,18 +25,36 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-
-public abstract class AbstractModule implements Module {
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public abstract class AbstractModule implements Module, ExecutionTracker {
     private Bot bot;
     private ModuleDescriptor descriptor;
-    private boolean enabled = false;
+    private final AtomicBoolean enabled = new AtomicBoolean(false);
     private Path dataFolder;
     private Logger logger;
     private ModuleConfig config;
-    private final List<Command> registeredCommands = new ArrayList<>();
-    private final List<EventListener> registeredListeners = new ArrayList<>();
+    private final List<Command> registeredCommands = new CopyOnWriteArrayList<>();
+    private final List<GuildCommand> registeredGuildCommands = new CopyOnWriteArrayList<>();
+    private final List<EventListener> registeredListeners = new CopyOnWriteArrayList<>();
+    private final Map<EventListener, EventListener> trackedListeners = new ConcurrentHashMap<>();
+    private final Map<EventListener, EventFilter> listenerFilters = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightExecutions = new AtomicInteger();
+    private final Object drainLock = new Object();
+    private volatile boolean staged = false;
+    private volatile EventExecutor eventExecutor;
+    private ModuleIndex index;
 
     public AbstractModule() {
         // empty, initialization is done in init()
@@ -47,35 +76,57 @@ public abstract class AbstractModule implements Module {
         onLoad();
     }
 
+    /**
+     * Initialize a module created from its generated index. The indexed commands and listeners
+     * are registered each time the module is enabled, before {@code onEnable}.
+     * @param bot The bot instance
+     * @param descriptor The module descriptor
+     * @param index The generated module index
+     */
+    public final void init(Bot bot, ModuleDescriptor descriptor, ModuleIndex index) {
+        this.index = index;
+        init(bot, descriptor);
+    }
+
     protected void onLoad() {}
 
     public void onUnload() {}
 
     public final void enable() {
-        if (this.enabled) {
+        if (!this.enabled.compareAndSet(false, true)) {
             logger.warn("Module {} is already enabled", this.descriptor.id());
             return;
         }
 
-        this.enabled = true;
-
         try {
+            EventExecutorConfig executorConfig = this.descriptor.eventExecutor();
+            if (executorConfig != null) {
+                this.eventExecutor = new EventExecutor(this.descriptor.id(), executorConfig);
+            }
+            if (this.index != null) {
+                this.index.createCommands(this).forEach(this::registerCommand);
+                this.index.createListeners(this).forEach(this::registerListener);
+            }
             onEnable();
         } catch (Exception e) {
             logger.error("Error enabling module {}", this.descriptor.id(), e);
-            this.enabled = false;
+            this.enabled.set(false);
+            // Staged registrations were never published, enableStaged drops them
+            if (!this.staged) {
+                unregisterAllCommands();
+                unregisterAllListeners();
+            }
+            shutdownEventExecutor();
             throw new RuntimeException("Failed to enable module " + this.descriptor.id(), e);
         }
     }
 
     public final void disable() {
-        if (!this.enabled) {
+        if (!this.enabled.compareAndSet(true, false)) {
             logger.warn("Module {} is not enabled", this.descriptor.id());
             return;
         }
 
-        this.enabled = false;
-
         try {
             onDisable();
         } catch (Exception e) {
@@ -83,6 +134,184 @@ public abstract class AbstractModule implements Module {
         }
         unregisterAllCommands();
         unregisterAllListeners();
+        shutdownEventExecutor();
+    }
+
+    /**
+     * Enable the module without publishing its registrations. Commands and listeners registered
+     * during {@code onEnable} are only recorded, and are published later by {@link #takeOver(AbstractModule)}.
+     * On failure, the recorded registrations are dropped.
+     */
+    public final void enableStaged() {
+        this.staged = true;
+
+        try {
+            enable();
+        } catch (RuntimeException e) {
+            this.registeredCommands.clear();
+            this.registeredGuildCommands.clear();
+            this.registeredListeners.clear();
+            this.listenerFilters.clear();
+            this.staged = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Replace a previous version of this module. The staged registrations of this module are published
+     * in place of the predecessor's ones, back to back, then the predecessor is disabled.
+     * Listeners and commands are registered before the predecessor's ones are removed, so no event is
+     * left without a listener and a command name kept across versions is never missing from the registry.
+     * @param predecessor The version being replaced, enabled
+     */
+    public final void takeOver(AbstractModule predecessor) {
+        Set<String> commandNames = this.registeredCommands.stream()
+                .map(Command::getName)
+                .collect(Collectors.toSet());
+
+        for (EventListener listener : this.registeredListeners) {
+            attachListener(listener);
+        }
+        for (EventListener listener : predecessor.registeredListeners) {
+            predecessor.detachListener(listener);
+            predecessor.registeredListeners.remove(listener);
+            predecessor.listenerFilters.remove(listener);
+        }
+
+        for (Command command : this.registeredCommands) {
+            this.bot.getCommandRegistry().registerCommand(command, this);
+        }
+        for (Command command : predecessor.registeredCommands) {
+            if (!commandNames.contains(command.getName())) {
+                this.bot.getCommandRegistry().unregisterCommand(command);
+            }
+            predecessor.registeredCommands.remove(command);
+        }
+
+        Set<String> guildCommandNames = this.registeredGuildCommands.stream()
+                .map(GuildCommand::key)
+                .collect(Collectors.toSet());
+        for (GuildCommand guildCommand : this.registeredGuildCommands) {
+            this.bot.getCommandRegistry().registerCommand(guildCommand.guildId(), guildCommand.command(), this);
+        }
+        for (GuildCommand guildCommand : predecessor.registeredGuildCommands) {
+            if (!guildCommandNames.contains(guildCommand.key())) {
+                this.bot.getCommandRegistry().unregisterCommand(guildCommand.guildId(), guildCommand.command());
+            }
+            predecessor.registeredGuildCommands.remove(guildCommand);
+        }
+
+        this.staged = false;
+
+        if (predecessor.enabled.compareAndSet(true, false)) {
+            try {
+                predecessor.onDisable();
+            } catch (Exception e) {
+                logger.error("Error disabling previous version of module {}", predecessor.descriptor.id(), e);
+            }
+        }
+        predecessor.shutdownEventExecutor();
+    }
+
+    /**
+     * Mark the start of an execution of this module's code, such as a command or an event.
+     * Must be paired with {@link #endExecution()}.
+     */
+    @Override
+    public final void beginExecution() {
+        this.inFlightExecutions.incrementAndGet();
+    }
+
+    /**
+     * Mark the end of an execution started with {@link #beginExecution()}.
+     */
+    @Override
+    public final void endExecution() {
+        if (this.inFlightExecutions.decrementAndGet() == 0) {
+            synchronized (this.drainLock) {
+                this.drainLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Get the number of executions of this module's code currently running.
+     * @return The number of in-flight executions
+     */
+    public final int getInFlightExecutions() {
+        return this.inFlightExecutions.get();
+    }
+
+    /**
+     * Wait until no execution of this module's code is running anymore.
+     * @param timeout The maximum time to wait
+     * @return true if the module drained, false if the timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public final boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (this.drainLock) {
+            while (this.inFlightExecutions.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this.drainLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Describe the slash commands this module registers when enabled, without enabling it.
+     * Only used by lazily activated modules, so that the real command data can be published
+     * to Discord before the module is enabled on first use.
+     * @return The data of the commands registered in {@code onEnable}, the indexed commands by default
+     */
+    public Collection<SlashCommandData> describeCommands() {
+        if (this.index != null) {
+            return this.index.createCommands(this).stream()
+                    .map(Command::buildCommandData)
+                    .toList();
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Deliver an event to the listeners registered by this module.
+     * Used to replay the event which triggered a lazy activation.
+     * @param event The event to deliver
+     */
+    public final void deliverEvent(GenericEvent event) {
+        for (EventListener listener : this.registeredListeners) {
+            if (!this.listenerFilters.getOrDefault(listener, EventFilter.ANY).test(event)) {
+                continue;
+            }
+            EventListener tracked = this.trackedListeners.get(listener);
+            (tracked != null ? tracked : listener).onEvent(event);
+        }
+    }
+
+    /**
+     * Get the queue statistics of the executor delivering this module's events.
+     * @return The statistics, or null if the module's events are delivered on the JDA event thread
+     */
+    public final EventExecutorStats getEventExecutorStats() {
+        EventExecutor executor = this.eventExecutor;
+        return executor == null ? null : executor.getStats();
+    }
+
+    /**
+     * Get the key under which an event waiting in the module's event executor may be replaced by a newer one,
+     * when the executor uses the {@code COALESCE} overflow policy. Only events of the same listener and type
+     * with equal keys replace each other, such as the presence updates of one user.
+     * @param listener The listener receiving the event
+     * @param event The event
+     * @return The coalescing key, or null to drop the event rather than coalesce it when the queue is full
+     */
+    protected Object getCoalescingKey(EventListener listener, GenericEvent event) {
+        return null;
     }
 
     protected ModuleConfig createConfig(Path dataDirectory) {
@@ -106,7 +335,7 @@ public abstract class AbstractModule implements Module {
 
     @Override
     public final boolean isEnabled() {
-        return this.enabled;
+        return this.enabled.get();
     }
 
     @Override
@@ -180,10 +409,29 @@ public abstract class AbstractModule implements Module {
         }
 
         this.registeredCommands.add(command);
-        this.bot.getCommandRegistry().registerCommand(command);
+        if (!this.staged) {
+            this.bot.getCommandRegistry().registerCommand(command, this);
+        }
         this.logger.debug("Registered command: {}", command.getName());
     }
 
+    /**
+     * Register a command for a single guild, for this module.
+     * @param guildId The id of the guild the command is available in
+     * @param command The command to register
+     */
+    protected final void registerCommand(long guildId, Command command) {
+        if (command == null) {
+            throw new IllegalArgumentException("Command cannot be null");
+        }
+
+        this.registeredGuildCommands.add(new GuildCommand(guildId, command));
+        if (!this.staged) {
+            this.bot.getCommandRegistry().registerCommand(guildId, command, this);
+        }
+        this.logger.debug("Registered command {} for guild {}", command.getName(), guildId);
+    }
+
     /**
      * Register an event listener for this module.
      * @param listener The event listener to register
@@ -194,19 +442,42 @@ public abstract class AbstractModule implements Module {
         }
 
         this.registeredListeners.add(listener);
-        this.bot.getJDA().addEventListener(listener);
+        if (!this.staged) {
+            attachListener(listener);
+        }
         this.logger.debug("Registered listener: {}", listener.getClass().getSimpleName());
     }
 
+    /**
+     * Register an event listener for this module, only receiving the events accepted by a filter.
+     * @param listener The event listener to register
+     * @param filter The conditions the events must meet
+     */
+    protected final void registerListener(EventListener listener, EventFilter filter) {
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter cannot be null");
+        }
+
+        if (listener != null) {
+            this.listenerFilters.put(listener, filter);
+        }
+        registerListener(listener);
+    }
+
     /**
      * Unregister all commands registered by this module.
      */
     private void unregisterAllCommands() {
         for (Command command : this.registeredCommands) {
             this.bot.getCommandRegistry().unregisterCommand(command);
+            this.registeredCommands.remove(command);
             this.logger.debug("Unregistered command: {}", command.getName());
         }
-        this.registeredCommands.clear();
+        for (GuildCommand guildCommand : this.registeredGuildCommands) {
+            this.bot.getCommandRegistry().unregisterCommand(guildCommand.guildId(), guildCommand.command());
+            this.registeredGuildCommands.remove(guildCommand);
+            this.logger.debug("Unregistered command {} for guild {}", guildCommand.command().getName(), guildCommand.guildId());
+        }
     }
 
     /**
@@ -214,9 +485,111 @@ public abstract class AbstractModule implements Module {
      */
     private void unregisterAllListeners() {
         for (EventListener listener : this.registeredListeners) {
-            this.bot.getJDA().removeEventListener(listener);
+            detachListener(listener);
+            this.registeredListeners.remove(listener);
+            this.listenerFilters.remove(listener);
             logger.debug("Unregistered listener: {}", listener.getClass().getSimpleName());
         }
-        this.registeredListeners.clear();
+    }
+
+    /**
+     * Add a listener to the event registry, or to JDA if the bot has no event registry,
+     * counting its deliveries as executions of this module. With an event executor, the events
+     * are counted from the moment they are queued.
+     */
+    private void attachListener(EventListener listener) {
+        EventFilter filter = this.listenerFilters.getOrDefault(listener, EventFilter.ANY);
+        EventRegistry eventRegistry = this.bot.getEventRegistry();
+        if (eventRegistry != null) {
+            TrackedListener tracked = new TrackedListener(listener, this.eventExecutor, EventFilter.ANY);
+            this.trackedListeners.put(listener, tracked);
+            // The wrapper handles any event, subscribe it to the types handled by the listener itself
+            eventRegistry.registerListener(tracked, DefaultEventRegistry.getSubscribedTypes(listener), filter);
+        } else {
+            TrackedListener tracked = new TrackedListener(listener, this.eventExecutor, filter);
+            this.trackedListeners.put(listener, tracked);
+            this.bot.getJDA().addEventListener(tracked);
+        }
+    }
+
+    private void detachListener(EventListener listener) {
+        EventListener tracked = this.trackedListeners.remove(listener);
+        if (tracked == null) {
+            return;
+        }
+        EventRegistry eventRegistry = this.bot.getEventRegistry();
+        if (eventRegistry != null) {
+            eventRegistry.unregisterListener(tracked, this.listenerFilters.getOrDefault(listener, EventFilter.ANY));
+        } else {
+            this.bot.getJDA().removeEventListener(tracked);
+        }
+        if (listener instanceof BatchedListener<?> batchedListener) {
+            // Deliver the pending events before the module's classes can be unloaded
+            batchedListener.close();
+        }
+    }
+
+    private void shutdownEventExecutor() {
+        EventExecutor executor = this.eventExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            this.eventExecutor = null;
+        }
+    }
+
+    /**
+     * Wrapper of a listener of this module, delivering the events accepted by the filter on the module's
+     * event executor, if any, and counting each delivery as an execution of the module.
+     */
+    private final class TrackedListener implements ListenerWrapper {
+        private final EventListener listener;
+        private final EventExecutor executor;
+        private final EventFilter filter;
+
+        private TrackedListener(EventListener listener, EventExecutor executor, EventFilter filter) {
+            this.listener = listener;
+            this.executor = executor;
+            this.filter = filter;
+        }
+
+        @Override
+        public EventListener getListener() {
+            return this.listener;
+        }
+
+        @Override
+        public void onEvent(GenericEvent event) {
+            if (this.filter != EventFilter.ANY && !this.filter.test(event)) {
+                return;
+            }
+
+            beginExecution();
+            if (this.executor == null) {
+                deliver(event);
+                return;
+            }
+            Object coalescingKey = getCoalescingKey(this.listener, event);
+            DeliveryKey key = coalescingKey != null ? new DeliveryKey(this.listener, event.getClass(), coalescingKey) : null;
+            this.executor.execute(key, () -> deliver(event), AbstractModule.this::endExecution);
+        }
+
+        private void deliver(GenericEvent event) {
+            try {
+                this.listener.onEvent(event);
+            } finally {
+                endExecution();
+            }
+        }
+    }
+
+    /**
+     * Deliveries of the same listener, event type and coalescing key, coalesced by the {@code COALESCE} overflow policy.
+     */
+    private record DeliveryKey(EventListener listener, Class<?> eventType, Object coalescingKey) {}
+
+    private record GuildCommand(long guildId, Command command) {
+        String key() {
+            return this.guildId + "/" + this.command.getName();
+        }
     }
 }
@@ -0,0 +1,90 @@
+package fr.orion.api.module;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares when a lazily activated module must be enabled.
+ * <p>
+ * A module declaring at least one trigger is not enabled at startup. The loader publishes
+ * lightweight stubs instead and enables the module on the first trigger hit.
+ *
+ * <h2>Example YAML structure:</h2>
+ * <pre>{@code
+ * activation:
+ *   commands:
+ *     - "shop"
+ *   events:
+ *     - "net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent"
+ *   schedule: "PT30M"
+ * }
+ * </pre>
+ *
+ * @param commands The names of the slash commands whose first use enables the module
+ * @param events   The fully qualified JDA event classes whose first occurrence enables the module
+ * @param schedule The delay after startup at which the module is enabled anyway, or null
+ *
+ * @see ModuleDescriptor#activationTriggers()
+ */
+public record ActivationTriggers(List<String> commands, List<String> events, Duration schedule) {
+    public static final ActivationTriggers NONE = new ActivationTriggers(null, null, null);
+
+    public ActivationTriggers {
+        commands = commands == null ? Collections.emptyList() : List.copyOf(commands);
+        events = events == null ? Collections.emptyList() : List.copyOf(events);
+    }
+
+    /**
+     * Check if the module must be activated lazily.
+     * @return true if at least one trigger is declared
+     */
+    public boolean isLazy() {
+        return !this.commands.isEmpty() || !this.events.isEmpty() || this.schedule != null;
+    }
+
+    /**
+     * Parse the {@code activation} section of a module descriptor.
+     * @param moduleId The id of the module declaring the section, for error messages
+     * @param value The raw section, may be null
+     * @return The parsed triggers
+     * @throws IllegalArgumentException if the section is malformed
+     */
+    static ActivationTriggers fromRaw(String moduleId, Object value) {
+        if (value == null) {
+            return NONE;
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Activation section of module " + moduleId + " must be a map");
+        }
+
+        return new ActivationTriggers(
+                toStringList(map.get("commands")),
+                toStringList(map.get("events")),
+                parseSchedule(moduleId, map.get("schedule"))
+        );
+    }
+
+    private static Duration parseSchedule(String moduleId, Object schedule) {
+        if (schedule == null) {
+            return null;
+        }
+        try {
+            return Duration.parse(schedule.toString());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid activation.schedule of module " + moduleId
+                    + ": '" + schedule + "' is not an ISO-8601 duration such as PT30M", e);
+        }
+    }
+
+    private static List<String> toStringList(Object value) {
+        if (value instanceof List<?> list) {
+            return list.stream().map(Object::toString).toList();
+        } else if (value != null) {
+            return List.of(value.toString());
+        }
+        return Collections.emptyList();
+    }
+}
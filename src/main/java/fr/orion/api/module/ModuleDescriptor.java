@@ -1,5 +1,7 @@
 package fr.orion.api.module;
 
+import fr.orion.api.event.EventExecutorConfig;
+
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,13 @@ import java.util.Map;
  * dependencies:
  *   - "required_module"
  * softDependencies: "optional_module"
+ * libraries:
+ *   - "com.fasterxml.jackson.core:jackson-databind:2.17.0"
+ * activation:
+ *   commands: "my_command"
+ * eventExecutor:
+ *   queueCapacity: 1000
+ *   overflow: "drop-oldest"
  * custom_field: "extra_data"
  * }
  * </pre>
@@ -80,6 +89,43 @@ public record ModuleDescriptor(
         );
     }
 
+    /**
+     * Get the generated module index class, set in descriptors generated by the {@code orion-processor}
+     * annotation processor.
+     * @return The fully qualified name of the {@link ModuleIndex} implementation, or null
+     */
+    public String index() {
+        Object index = this.rawData.get("index");
+        return index == null ? null : index.toString();
+    }
+
+    /**
+     * Get the shared libraries declared in the {@code libraries} section, as paths relative to the
+     * modules directory or as {@code group:artifact:version} coordinates.
+     * @return The declared libraries
+     */
+    public List<String> libraries() {
+        return getStringList(this.rawData, "libraries");
+    }
+
+    /**
+     * Get the lazy activation triggers declared in the {@code activation} section.
+     * @return The declared triggers, {@link ActivationTriggers#NONE} if the module is enabled eagerly
+     * @throws IllegalArgumentException if the section is malformed
+     */
+    public ActivationTriggers activationTriggers() {
+        return ActivationTriggers.fromRaw(this.id, this.rawData.get("activation"));
+    }
+
+    /**
+     * Get the configuration of the executor delivering the module's events, declared in the {@code eventExecutor} section.
+     * @return The executor configuration, or null if the module's events are delivered on the JDA event thread
+     * @throws IllegalArgumentException if the section is malformed
+     */
+    public EventExecutorConfig eventExecutor() {
+        return EventExecutorConfig.fromRaw(this.rawData.get("eventExecutor"));
+    }
+
     private static List<String> getStringList(Map<String, Object> map, String key) {
         if (map.containsKey(key)) {
             Object value = map.get(key);
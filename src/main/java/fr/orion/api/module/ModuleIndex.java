@@ -0,0 +1,34 @@
+package fr.orion.api.module;
+
+import fr.orion.api.command.Command;
+import net.dv8tion.jda.api.hooks.EventListener;
+
+import java.util.List;
+
+/**
+ * Registration index of a module, generated at compile time by the {@code orion-processor} annotation processor.
+ * The loader creates the module and its registrations through it, without reflection nor classpath scanning.
+ *
+ * @see fr.orion.api.module.annotation.OrionModule
+ */
+public interface ModuleIndex {
+    /**
+     * Create the module instance.
+     * @return A new instance of the module main class
+     */
+    AbstractModule createModule();
+
+    /**
+     * Create the commands registered when the module is enabled, with their subcommands.
+     * @param module The module instance, given to the constructors taking it
+     * @return New instances of the indexed commands
+     */
+    List<Command> createCommands(AbstractModule module);
+
+    /**
+     * Create the listeners registered when the module is enabled.
+     * @param module The module instance, given to the constructors taking it
+     * @return New instances of the indexed listeners
+     */
+    List<EventListener> createListeners(AbstractModule module);
+}
@@ -1,7 +1,11 @@
 package fr.orion.api.module;
 
+import fr.orion.api.event.EventExecutorStats;
+
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 public interface ModuleManager {
     int loadModules();
@@ -23,4 +27,33 @@ public interface ModuleManager {
     boolean isModuleLoaded(String moduleId);
 
     List<String> getModuleDependencies(String moduleId);
+
+    /**
+     * Get the last measured duration of each lifecycle phase of a module.
+     * @param moduleId The module id
+     * @return The module timings, or null if none were recorded for this module
+     */
+    default ModuleTimings getModuleTimings(String moduleId) {
+        return null;
+    }
+
+    /**
+     * Get the lifecycle timings of every module seen by this manager, including unloaded ones.
+     * @return The timings of each module
+     */
+    default Collection<ModuleTimings> getAllModuleTimings() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get the queue statistics of the modules delivering their events on their own executor.
+     * @return The statistics of each enabled module with an event executor
+     */
+    default Collection<EventExecutorStats> getEventExecutorStats() {
+        return getEnabledModules().stream()
+                .filter(AbstractModule.class::isInstance)
+                .map(module -> ((AbstractModule) module).getEventExecutorStats())
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
@@ -0,0 +1,21 @@
+package fr.orion.api.module;
+
+/**
+ * The lifecycle phases of a module which are timed by the module manager.
+ */
+public enum ModulePhase {
+    /** Reading and parsing the module descriptor from the JAR. */
+    DESCRIPTOR_READ,
+    /** Creating the module ClassLoader and loading the main class. */
+    CLASS_LOADING,
+    /** Instantiating the main class. */
+    CONSTRUCTION,
+    /** Running {@code init} and {@code onLoad}. */
+    LOAD,
+    /** Running {@code onEnable}. */
+    ENABLE,
+    /** Running {@code onDisable}. */
+    DISABLE,
+    /** Running {@code onUnload} and closing the module ClassLoader. */
+    UNLOAD
+}
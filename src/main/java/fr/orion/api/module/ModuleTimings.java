@@ -0,0 +1,41 @@
+package fr.orion.api.module;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The last measured duration of each lifecycle phase of a module.
+ *
+ * @param moduleId The module id
+ * @param phases   The duration of each phase measured so far
+ */
+public record ModuleTimings(String moduleId, Map<ModulePhase, Duration> phases) {
+    public ModuleTimings {
+        Map<ModulePhase, Duration> copy = new EnumMap<>(ModulePhase.class);
+        copy.putAll(phases);
+        phases = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Get the duration of a phase.
+     * @param phase The phase
+     * @return The last measured duration, or {@link Duration#ZERO} if the phase was never run
+     */
+    public Duration get(ModulePhase phase) {
+        return this.phases.getOrDefault(phase, Duration.ZERO);
+    }
+
+    /**
+     * Get the startup cost of the module, from descriptor read to the end of {@code onEnable}.
+     * @return The sum of the startup phases
+     */
+    public Duration startup() {
+        return get(ModulePhase.DESCRIPTOR_READ)
+                .plus(get(ModulePhase.CLASS_LOADING))
+                .plus(get(ModulePhase.CONSTRUCTION))
+                .plus(get(ModulePhase.LOAD))
+                .plus(get(ModulePhase.ENABLE));
+    }
+}
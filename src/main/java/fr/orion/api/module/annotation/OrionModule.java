@@ -0,0 +1,137 @@
+package fr.orion.api.module.annotation;
+
+import fr.orion.api.event.EventExecutorConfig;
+import net.dv8tion.jda.api.events.GenericEvent;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declare the main class of a module.
+ * <p>
+ * With the {@code orion-processor} annotation processor on the compile classpath, the {@code module.yml}
+ * descriptor and a {@link fr.orion.api.module.ModuleIndex} of the commands and listeners annotated with
+ * {@link RegisterCommand}, {@link RegisterSubcommand} and {@link RegisterListener} are generated at compile time.
+ * The annotated class must extend {@link fr.orion.api.module.AbstractModule} and have a public no-arg constructor.
+ * Indexed commands, subcommands and listeners may take the module instance in their constructor.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface OrionModule {
+    /**
+     * @return The unique module identifier
+     */
+    String id();
+
+    /**
+     * @return The human-readable module name, the id if empty
+     */
+    String name() default "";
+
+    /**
+     * @return The module version
+     */
+    String version() default "1.0.0";
+
+    /**
+     * @return The module description
+     */
+    String description() default "";
+
+    /**
+     * @return The module author(s)
+     */
+    String author() default "Unknown";
+
+    /**
+     * @return The project website URL
+     */
+    String website() default "";
+
+    /**
+     * @return The distribution license
+     */
+    String license() default "";
+
+    /**
+     * @return The ids of the modules this module requires
+     */
+    String[] dependencies() default {};
+
+    /**
+     * @return The ids of the modules this module optionally uses
+     */
+    String[] softDependencies() default {};
+
+    /**
+     * @return The shared libraries, as paths relative to the modules directory or {@code group:artifact:version} coordinates
+     */
+    String[] libraries() default {};
+
+    /**
+     * @return The triggers enabling the module lazily, none to enable it at startup
+     * @see fr.orion.api.module.ActivationTriggers
+     */
+    Activation activation() default @Activation;
+
+    /**
+     * @return The executor delivering the module's events, at most one, none to deliver them on the JDA event thread
+     * @see EventExecutorConfig
+     */
+    EventExecutor[] eventExecutor() default {};
+
+    /**
+     * The {@code activation} section of the descriptor.
+     */
+    @Documented
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({})
+    @interface Activation {
+        /**
+         * @return The names of the slash commands whose first use enables the module
+         */
+        String[] commands() default {};
+
+        /**
+         * @return The JDA events whose first occurrence enables the module
+         */
+        Class<? extends GenericEvent>[] events() default {};
+
+        /**
+         * @return The ISO-8601 delay after startup at which the module is enabled anyway, such as {@code PT30M}, none if empty
+         */
+        String schedule() default "";
+    }
+
+    /**
+     * The {@code eventExecutor} section of the descriptor.
+     */
+    @Documented
+    @Retention(RetentionPolicy.SOURCE)
+    @Target({})
+    @interface EventExecutor {
+        /**
+         * @return The maximum number of events waiting for delivery
+         */
+        int queueCapacity() default EventExecutorConfig.DEFAULT_QUEUE_CAPACITY;
+
+        /**
+         * @return The maximum number of events delivered at the same time, 1 to keep the events in order
+         */
+        int parallelism() default 1;
+
+        /**
+         * @return What happens to an event arriving when the queue is full
+         */
+        EventExecutorConfig.OverflowPolicy overflow() default EventExecutorConfig.OverflowPolicy.DROP_OLDEST;
+
+        /**
+         * @return Whether to deliver events on virtual threads, when the runtime provides them
+         */
+        boolean virtualThreads() default false;
+    }
+}
@@ -0,0 +1,17 @@
+package fr.orion.api.module.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Register a {@link fr.orion.api.command.Command} when its module is enabled.
+ * The annotated class must have a public constructor taking the module main class, or a public no-arg constructor.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface RegisterCommand {
+}
@@ -0,0 +1,23 @@
+package fr.orion.api.module.annotation;
+
+import fr.orion.api.command.ParentCommand;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Add a {@link ParentCommand.SubcommandHandler} to its parent command when the module is enabled.
+ * The annotated class must have a public constructor taking the module main class, or a public no-arg constructor.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface RegisterSubcommand {
+    /**
+     * @return The parent command, annotated with {@link RegisterCommand}
+     */
+    Class<? extends ParentCommand> parent();
+}
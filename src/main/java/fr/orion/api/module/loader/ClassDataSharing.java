@@ -0,0 +1,279 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.Bot;
+import fr.orion.api.command.CommandRegistry;
+import fr.orion.api.command.DefaultCommandRegistry;
+import fr.orion.api.event.DefaultEventRegistry;
+import fr.orion.api.event.EventRegistry;
+import fr.orion.api.module.Module;
+import fr.orion.api.module.ModuleManager;
+import fr.orion.api.permission.PermissionManager;
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Maintain a dynamic AppCDS archive of the classes loaded while starting the bot and its modules.
+ * <p>
+ * A training run loads and enables every installed module against an offline bot, then exits so that the JVM
+ * writes the classes it loaded (API, JDA, SnakeYAML and module classes) to the archive. Later runs map the archive instead of parsing
+ * and verifying those classes again. The archive is tied to a fingerprint of the JVM and of the module JARs,
+ * and needs a new training run whenever a module JAR changes. Changes of the class path are detected by the
+ * JVM itself, which then ignores the archive. As required by CDS, the class path must only contain JAR files.
+ * <p>
+ * Typical launcher script:
+ * <pre>
+ * if ! java -cp bot.jar fr.orion.api.module.loader.ClassDataSharing check orion.jsa modules; then
+ *     java -XX:ArchiveClassesAtExit=orion.jsa -cp bot.jar fr.orion.api.module.loader.ClassDataSharing train orion.jsa modules
+ * fi
+ * java -XX:SharedArchiveFile=orion.jsa -Xshare:auto -cp bot.jar com.example.Main
+ * </pre>
+ * The offline bot never connects to Discord: its JDA instance is inert and answers every call with an empty value,
+ * so the gateway and REST classes of JDA are not archived, and modules depending on live Discord data may fail to
+ * enable during training, which is logged and does not stop it. For a complete archive, regenerate it from a real
+ * run instead: start the bot itself with {@link #trainingOptions()}, and call {@link #recordFingerprint()} before
+ * it shuts down.
+ */
+public final class ClassDataSharing {
+    private static final Logger logger = LoggerFactory.getLogger(ClassDataSharing.class);
+
+    private final Path archiveFile;
+    private final Path fingerprintFile;
+    private final Path modulesDirectory;
+
+    /**
+     * @param archiveFile The CDS archive file
+     * @param modulesDirectory The directory containing the module JARs
+     */
+    public ClassDataSharing(Path archiveFile, Path modulesDirectory) {
+        this.archiveFile = archiveFile;
+        this.fingerprintFile = archiveFile.resolveSibling(archiveFile.getFileName() + ".fingerprint");
+        this.modulesDirectory = modulesDirectory;
+    }
+
+    /**
+     * Check whether the archive exists and was trained with the current JVM and module JARs.
+     * @return true if the archive can be used, false if a training run is needed
+     */
+    public boolean isUpToDate() {
+        if (!Files.isRegularFile(this.archiveFile) || !Files.isRegularFile(this.fingerprintFile)) {
+            return false;
+        }
+
+        try {
+            return Files.readString(this.fingerprintFile, StandardCharsets.UTF_8).trim().equals(fingerprint());
+        } catch (IOException e) {
+            logger.warn("Failed to read CDS fingerprint {}: {}", this.fingerprintFile, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Get the JVM options of a regular run.
+     * @return The options using the archive, or no option if it needs a training run
+     */
+    public List<String> runOptions() {
+        if (!isUpToDate()) {
+            return List.of();
+        }
+        return List.of("-XX:SharedArchiveFile=" + this.archiveFile, "-Xshare:auto");
+    }
+
+    /**
+     * Get the JVM options of a training run, which writes the archive when the JVM exits.
+     * @return The training options
+     */
+    public List<String> trainingOptions() {
+        return List.of("-XX:ArchiveClassesAtExit=" + this.archiveFile);
+    }
+
+    /**
+     * Load and enable every installed module against an offline bot, without connecting to Discord,
+     * and record the fingerprint of the archive the JVM writes at exit. The previous archive is deleted
+     * first, so that a failed dump is never mistaken for an up to date archive. Lazily activated modules
+     * are enabled right away, so that their classes are archived too.
+     * @return The number of modules loaded
+     * @throws IOException if the previous archive or the fingerprint cannot be written
+     */
+    public int train() throws IOException {
+        Files.deleteIfExists(this.archiveFile);
+        Files.deleteIfExists(this.fingerprintFile);
+
+        OfflineBot bot = new OfflineBot();
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, bot);
+        bot.moduleManager = loader;
+
+        int loaded = loader.loadModules();
+        // Dependencies are enabled first by enableModule, and a module failing to enable is only logged
+        for (Module module : loader.getModules()) {
+            if (!module.isEnabled()) {
+                loader.enableModule(module.getModuleDescriptor().id());
+            }
+        }
+        long enabled = loader.getModules().stream().filter(Module::isEnabled).count();
+        loader.unloadAllModules();
+
+        recordFingerprint();
+        logger.info("CDS training run loaded {} modules and enabled {}, archive will be written to {} at exit",
+                loaded, enabled, this.archiveFile);
+        return loaded;
+    }
+
+    /**
+     * Record that the archive written when this JVM exits matches the current JVM and module JARs.
+     * Call it before shutting down a bot started with {@link #trainingOptions()} to regenerate the archive
+     * from a real run.
+     * @throws IOException if the fingerprint cannot be written
+     */
+    public void recordFingerprint() throws IOException {
+        Files.writeString(this.fingerprintFile, fingerprint(), StandardCharsets.UTF_8);
+    }
+
+    private String fingerprint() throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        update(digest, System.getProperty("java.vm.vendor"));
+        update(digest, System.getProperty("java.vm.version"));
+
+        if (Files.isDirectory(this.modulesDirectory)) {
+            List<Path> jars;
+            try (Stream<Path> paths = Files.list(this.modulesDirectory)) {
+                jars = paths.filter(path -> path.toString().endsWith(".jar")).sorted().toList();
+            }
+            for (Path jar : jars) {
+                update(digest, jar.getFileName().toString());
+                update(digest, Long.toString(Files.size(jar)));
+                update(digest, Long.toString(Files.getLastModifiedTime(jar).toMillis()));
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Bot used by training runs, with working registries and inert JDA and permission manager.
+     */
+    private static final class OfflineBot implements Bot {
+        private final JDA jda = inert(JDA.class);
+        private final PermissionManager permissionManager = inert(PermissionManager.class);
+        private final CommandRegistry commandRegistry = new DefaultCommandRegistry(this.jda);
+        private final EventRegistry eventRegistry = new DefaultEventRegistry();
+        private ModuleManager moduleManager;
+
+        @Override
+        public CommandRegistry getCommandRegistry() {
+            return this.commandRegistry;
+        }
+
+        @Override
+        public EventRegistry getEventRegistry() {
+            return this.eventRegistry;
+        }
+
+        @Override
+        public JDA getJDA() {
+            return this.jda;
+        }
+
+        @Override
+        public ModuleManager getModuleManager() {
+            return this.moduleManager;
+        }
+
+        @Override
+        public PermissionManager getPermissionManager() {
+            return this.permissionManager;
+        }
+    }
+
+    /**
+     * Create an implementation of an interface answering every call with an empty value.
+     */
+    private static <T> T inert(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            return switch (method.getName()) {
+                case "toString" -> "Offline" + type.getSimpleName();
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> emptyValue(returnType);
+            };
+        }));
+    }
+
+    private static Object emptyValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == double.class) {
+            return 0D;
+        } else if (type.isPrimitive() && type != void.class) {
+            return Array.get(Array.newInstance(type, 1), 0);
+        } else if (type == String.class) {
+            return "";
+        } else if (type == Set.class) {
+            return Set.of();
+        } else if (type == List.class || type == Collection.class) {
+            return List.of();
+        }
+        return null;
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Command line entry point for launcher scripts.
+     * <ul>
+     *     <li>{@code check <archive> <modulesDirectory>} exits with status 1 if a training run is needed</li>
+     *     <li>{@code options <archive> <modulesDirectory>} prints the JVM options of a regular run</li>
+     *     <li>{@code train <archive> <modulesDirectory>} performs a training run, to be started with the training options</li>
+     * </ul>
+     * @param args The command line arguments
+     * @throws IOException if the training run fails to write its files
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: ClassDataSharing <check|options|train> <archive> <modulesDirectory>");
+            System.exit(2);
+        }
+
+        ClassDataSharing cds = new ClassDataSharing(Path.of(args[1]), Path.of(args[2]));
+        switch (args[0]) {
+            case "check" -> System.exit(cds.isUpToDate() ? 0 : 1);
+            case "options" -> System.out.println(String.join(" ", cds.runOptions()));
+            case "train" -> {
+                cds.train();
+                // Threads left behind by modules must not keep the JVM, and its archive dump, from exiting
+                System.exit(0);
+            }
+            default -> {
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(2);
+            }
+        }
+    }
+}
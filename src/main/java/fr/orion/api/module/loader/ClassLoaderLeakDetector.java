@@ -0,0 +1,219 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.Bot;
+import fr.orion.api.event.ListenerWrapper;
+import fr.orion.api.utils.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the ClassLoaders of unloaded modules and reports the ones which are still reachable after a grace period.
+ * <p>
+ * Each unloaded ClassLoader is only referenced weakly. Once the grace period elapsed and the JVM ran at least
+ * one old generation or full collection since the unload, a ClassLoader which was not collected is reported as
+ * leaked; young collections are ignored, as they never unload classes. The report lists the likely retention
+ * roots found: event listeners defined by the module, still registered in JDA or in the event registry, and live
+ * threads running the module's code or using its ClassLoader as context ClassLoader. The class names of a module
+ * are the ones read when its ClassLoader was created, so a JAR replaced since does not hide its threads.
+ */
+public class ClassLoaderLeakDetector implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ClassLoaderLeakDetector.class);
+
+    private final Bot bot;
+    private final ReferenceQueue<ClassLoader> queue = new ReferenceQueue<>();
+    private final Map<Reference<? extends ClassLoader>, TrackedLoader> trackedLoaders = new ConcurrentHashMap<>();
+    private final Map<Reference<? extends ClassLoader>, Leak> leaks = new ConcurrentHashMap<>();
+    private volatile Duration gracePeriod;
+    private ScheduledExecutorService scheduler;
+
+    public ClassLoaderLeakDetector(Bot bot, Duration gracePeriod) {
+        this.bot = bot;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Start tracking the ClassLoader of a module which was just unloaded.
+     * @param moduleId The id of the unloaded module
+     * @param classLoader The module ClassLoader, already closed
+     */
+    public void track(String moduleId, ClassLoader classLoader) {
+        if (classLoader == null) {
+            return;
+        }
+
+        Set<String> classNames = classLoader instanceof ModuleClassLoader moduleClassLoader
+                ? moduleClassLoader.getClassNames() : Set.of();
+        WeakReference<ClassLoader> reference = new WeakReference<>(classLoader, this.queue);
+        this.trackedLoaders.put(reference, new TrackedLoader(moduleId, classNames, System.nanoTime(), majorCollections()));
+        ensureStarted();
+    }
+
+    /**
+     * Set how long an unloaded ClassLoader may stay reachable before being reported.
+     * @param gracePeriod The grace period
+     */
+    public void setGracePeriod(Duration gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Get the module ClassLoaders currently considered leaked.
+     * @return The leaks found so far and not collected since
+     */
+    public List<Leak> getLeaks() {
+        return List.copyOf(this.leaks.values());
+    }
+
+    private synchronized void ensureStarted() {
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("orion-classloader-leak-detector"));
+            long period = Math.max(1, Math.min(this.gracePeriod.toSeconds(), 30));
+            this.scheduler.scheduleWithFixedDelay(this::check, period, period, TimeUnit.SECONDS);
+        }
+    }
+
+    private void check() {
+        try {
+            Reference<? extends ClassLoader> collected;
+            while ((collected = this.queue.poll()) != null) {
+                TrackedLoader tracked = this.trackedLoaders.remove(collected);
+                Leak leak = this.leaks.remove(collected);
+                if (tracked != null) {
+                    logger.debug("ClassLoader of module {} was collected", tracked.moduleId());
+                }
+                if (leak != null) {
+                    logger.info("ClassLoader of module {} was finally collected", leak.moduleId());
+                }
+            }
+
+            long now = System.nanoTime();
+            long collections = majorCollections();
+
+            for (Map.Entry<Reference<? extends ClassLoader>, TrackedLoader> entry : this.trackedLoaders.entrySet()) {
+                TrackedLoader tracked = entry.getValue();
+                if (this.leaks.containsKey(entry.getKey())
+                        || now - tracked.unloadedAt() < this.gracePeriod.toNanos()
+                        || collections <= tracked.collectionsAtUnload()) {
+                    continue;
+                }
+
+                ClassLoader classLoader = entry.getKey().get();
+                if (classLoader == null) {
+                    continue;
+                }
+
+                List<String> suspects = findRetentionSuspects(classLoader, tracked.classNames());
+                classLoader = null;
+
+                Leak leak = new Leak(tracked.moduleId(), Duration.ofNanos(now - tracked.unloadedAt()), suspects);
+                this.leaks.put(entry.getKey(), leak);
+
+                if (suspects.isEmpty()) {
+                    logger.warn("ClassLoader of module {} is still reachable {} s after unload, no obvious retention root found",
+                            leak.moduleId(), leak.sinceUnload().toSeconds());
+                } else {
+                    logger.warn("ClassLoader of module {} is still reachable {} s after unload, likely retained by: {}",
+                            leak.moduleId(), leak.sinceUnload().toSeconds(), String.join("; ", suspects));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error while checking unloaded module ClassLoaders", e);
+        }
+    }
+
+    private List<String> findRetentionSuspects(ClassLoader classLoader, Set<String> moduleClasses) {
+        List<String> suspects = new ArrayList<>();
+
+        if (this.bot != null) {
+            if (this.bot.getJDA() != null) {
+                findListenerSuspects(this.bot.getJDA().getRegisteredListeners(), classLoader, "JDA", suspects);
+            }
+            if (this.bot.getEventRegistry() != null) {
+                findListenerSuspects(this.bot.getEventRegistry().getRegisteredListeners(), classLoader, "event registry", suspects);
+            }
+        }
+
+        for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+            Thread thread = entry.getKey();
+
+            if (thread.getContextClassLoader() == classLoader) {
+                suspects.add("thread '" + thread.getName() + "' (context ClassLoader)");
+                continue;
+            }
+
+            for (StackTraceElement frame : entry.getValue()) {
+                if (moduleClasses.contains(frame.getClassName())) {
+                    suspects.add("thread '" + thread.getName() + "' (running " + frame.getClassName() + ")");
+                    break;
+                }
+            }
+        }
+
+        return suspects;
+    }
+
+    private static void findListenerSuspects(Collection<?> listeners, ClassLoader classLoader, String registry, List<String> suspects) {
+        for (Object listener : listeners) {
+            // Modules register their listeners behind wrappers defined by the API
+            while (listener instanceof ListenerWrapper wrapper) {
+                listener = wrapper.getListener();
+            }
+            if (listener != null && listener.getClass().getClassLoader() == classLoader) {
+                suspects.add(registry + " listener " + listener.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * Count the collections which may unload classes: old generation, full and whole-heap concurrent cycles.
+     */
+    private static long majorCollections() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (isMajorCollector(bean.getName())) {
+                total += Math.max(0, bean.getCollectionCount());
+            }
+        }
+        return total;
+    }
+
+    private static boolean isMajorCollector(String name) {
+        return name.contains("Old") || name.contains("MarkSweep") || name.contains("Major")
+                || name.equals("G1 Concurrent GC") || name.equals("ZGC Cycles") || name.equals("Shenandoah Cycles");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+    }
+
+    /**
+     * A module ClassLoader still reachable after its grace period.
+     *
+     * @param moduleId    The id of the unloaded module
+     * @param sinceUnload The time elapsed since the module was unloaded when the leak was detected
+     * @param suspects    The likely retention roots, possibly empty
+     */
+    public record Leak(String moduleId, Duration sinceUnload, List<String> suspects) {}
+
+    private record TrackedLoader(String moduleId, Set<String> classNames, long unloadedAt, long collectionsAtUnload) {}
+}
@@ -2,36 +2,71 @@ package fr.orion.api.module.loader;
 
 import fr.orion.api.Bot;
 import fr.orion.api.module.AbstractModule;
+import fr.orion.api.module.ActivationTriggers;
 import fr.orion.api.module.Module;
 import fr.orion.api.module.ModuleDescriptor;
+import fr.orion.api.module.ModuleIndex;
 import fr.orion.api.module.ModuleManager;
+import fr.orion.api.module.ModulePhase;
+import fr.orion.api.module.ModuleTimings;
 import fr.orion.api.module.loader.exception.ModuleException;
+import fr.orion.api.utils.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DefaultModuleLoader implements ModuleManager {
     private static final Logger logger = LoggerFactory.getLogger(DefaultModuleLoader.class);
 
     private final Map<String, ModuleInfo> modulesById = new ConcurrentHashMap<>();
+    private final ModuleDependencyGraph dependencyGraph = new ModuleDependencyGraph();
+    private final Map<String, LazyActivation> pendingActivations = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<?>> abandonedTasks = new ConcurrentHashMap<>();
+    private final ModuleTimingRecorder timingRecorder = new ModuleTimingRecorder();
     private final Path modulesDirectory;
     private final Bot bot;
+    private final ClassLoaderLeakDetector leakDetector;
+    private final SharedLibraryClassLoader sharedLibraries;
+    private volatile int scanParallelism = 1;
+    private volatile ModuleDescriptorIndex descriptorIndex;
+    private volatile int enableParallelism = 1;
+    private volatile Duration enableTimeout = Duration.ofSeconds(30);
+    private volatile int shutdownParallelism = 1;
+    private volatile Duration disableTimeout = Duration.ofSeconds(30);
+    private ModuleDirectoryWatcher directoryWatcher;
+    private volatile boolean blueGreenReload = false;
+    private volatile Duration reloadDrainTimeout = Duration.ofSeconds(10);
+    private ScheduledExecutorService activationScheduler;
+    private volatile Path shadowDirectory;
+    private final AtomicLong shadowSequence = new AtomicLong();
 
     public DefaultModuleLoader(Path modulesDirectory, Bot bot) {
         this.modulesDirectory = modulesDirectory;
         this.bot = bot;
+        this.leakDetector = new ClassLoaderLeakDetector(bot, Duration.ofMinutes(1));
+        this.sharedLibraries = new SharedLibraryClassLoader(modulesDirectory, getClass().getClassLoader());
 
         try {
             Files.createDirectories(modulesDirectory);
@@ -46,28 +81,46 @@ public class DefaultModuleLoader implements ModuleManager {
         int loadedModules = 0;
 
         try {
-            List<Path> moduleJars = Files.list(this.modulesDirectory)
-                    .filter(path -> path.toString().toLowerCase().endsWith(".jar"))
-                    .toList();
+            List<Path> moduleJars;
+            try (Stream<Path> files = Files.list(this.modulesDirectory)) {
+                moduleJars = files
+                        .filter(path -> path.toString().toLowerCase().endsWith(".jar"))
+                        .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                        .toList();
+            }
 
-            Map<String, ModuleDescriptor> descriptors = new HashMap<>();
+            Map<String, ModuleDescriptor> descriptors = new LinkedHashMap<>();
             Map<String, Path> jarPaths = new HashMap<>();
 
-            for (Path jarPath : moduleJars) {
-                try {
-                    ModuleDescriptor descriptor = loadModuleDescriptor(jarPath);
-                    if (descriptor != null) {
-                        descriptors.put(descriptor.id(), descriptor);
-                        jarPaths.put(descriptor.id(), jarPath);
-                        logger.debug("Loaded module descriptor for module: {}", descriptor.id());
-                        logger.debug("Module descriptor: {}", descriptor);
-                    }
-                } catch (ModuleException e) {
-                    logger.error("Failed to load module descriptor from JAR: {}", jarPath.getFileName(), e);
+            for (ScannedDescriptor scanned : scanModuleDescriptors(moduleJars)) {
+                if (scanned.error() != null) {
+                    logger.error("Failed to load module descriptor from JAR: {}", scanned.jarPath().getFileName(), scanned.error());
+                    continue;
+                }
+
+                ModuleDescriptor descriptor = scanned.descriptor();
+                if (descriptor != null) {
+                    descriptors.put(descriptor.id(), descriptor);
+                    jarPaths.put(descriptor.id(), scanned.jarPath());
+                    logger.debug("Loaded module descriptor for module: {}", descriptor.id());
+                    logger.debug("Module descriptor: {}", descriptor);
+                }
+            }
+
+            ModuleDescriptorIndex index = this.descriptorIndex;
+            List<String> loadOrder = index != null ? index.getLoadOrder(descriptors) : null;
+
+            if (loadOrder == null) {
+                loadOrder = calculateLoadOrder(descriptors);
+                if (index != null) {
+                    index.setLoadOrder(descriptors, loadOrder);
                 }
             }
 
-            List<String> loadOrder = calculateLoadOrder(descriptors);
+            if (index != null) {
+                index.retainOnly(moduleJars);
+                index.save();
+            }
 
             for (String moduleId : loadOrder) {
                 try {
@@ -89,6 +142,107 @@ public class DefaultModuleLoader implements ModuleManager {
         return loadedModules;
     }
 
+    /**
+     * Set how many JAR files may be opened and parsed concurrently when scanning module descriptors.
+     * A value of 1 (the default) keeps the scan on the calling thread.
+     * @param scanParallelism The maximum number of concurrent descriptor reads
+     */
+    public void setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 1) {
+            throw new IllegalArgumentException("Scan parallelism must be at least 1");
+        }
+        this.scanParallelism = scanParallelism;
+    }
+
+    /**
+     * Enable the persistent descriptor index. Unchanged JARs are then resolved from the index
+     * instead of being opened and parsed again.
+     * @param indexFile The index file, or null to disable the index
+     */
+    public void setDescriptorIndexFile(Path indexFile) {
+        this.descriptorIndex = indexFile != null ? new ModuleDescriptorIndex(indexFile) : null;
+    }
+
+    /**
+     * Read the descriptors of the given JAR files. Results are returned in the same order as the input,
+     * whatever the scan parallelism, so that the merge done by {@link #loadModules()} stays deterministic.
+     */
+    protected List<ScannedDescriptor> scanModuleDescriptors(List<Path> moduleJars) {
+        int parallelism = Math.min(this.scanParallelism, moduleJars.size());
+        if (parallelism <= 1) {
+            return moduleJars.stream()
+                    .map(this::scanModuleDescriptor)
+                    .toList();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("orion-module-scan"));
+        try {
+            List<Future<ScannedDescriptor>> futures = new ArrayList<>(moduleJars.size());
+            for (Path jarPath : moduleJars) {
+                futures.add(executor.submit(() -> scanModuleDescriptor(jarPath)));
+            }
+
+            List<ScannedDescriptor> results = new ArrayList<>(futures.size());
+            for (Future<ScannedDescriptor> future : futures) {
+                results.add(awaitScan(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private ScannedDescriptor scanModuleDescriptor(Path jarPath) {
+        String fileName = jarPath.getFileName().toString();
+        ModuleTimingRecorder.Span span = this.timingRecorder.start(fileName, ModulePhase.DESCRIPTOR_READ);
+        ScannedDescriptor scanned = null;
+        try {
+            scanned = readModuleDescriptor(jarPath);
+            return scanned;
+        } finally {
+            // Unreadable JARs are attributed to their file name, as they have no module id
+            if (scanned != null && scanned.descriptor() != null) {
+                span.end(scanned.descriptor().id(), true);
+            } else {
+                span.end(fileName, false);
+            }
+        }
+    }
+
+    private ScannedDescriptor readModuleDescriptor(Path jarPath) {
+        ModuleDescriptorIndex index = this.descriptorIndex;
+        if (index != null) {
+            ModuleDescriptorIndex.Entry entry = index.lookup(jarPath);
+            if (entry != null) {
+                return new ScannedDescriptor(jarPath, entry.descriptor(), null);
+            }
+        }
+
+        try {
+            ModuleDescriptor descriptor = loadModuleDescriptor(jarPath);
+            if (index != null) {
+                index.record(jarPath, descriptor);
+            }
+            return new ScannedDescriptor(jarPath, descriptor, null);
+        } catch (ModuleException e) {
+            return new ScannedDescriptor(jarPath, null, e);
+        }
+    }
+
+    private ScannedDescriptor awaitScan(Future<ScannedDescriptor> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModuleException("Interrupted while scanning module descriptors", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ModuleException("Failed to scan module descriptors", e.getCause());
+        }
+    }
+
     protected ModuleDescriptor loadModuleDescriptor(Path jarPath) throws ModuleException {
         try (JarFile jarFile = new JarFile(jarPath.toFile())) {
             JarEntry moduleYmlEntry = jarFile.getJarEntry("module.yml");
@@ -107,11 +261,11 @@ public class DefaultModuleLoader implements ModuleManager {
     }
 
     protected List<String> calculateLoadOrder(Map<String, ModuleDescriptor> descriptors) throws ModuleException {
-        Map<String, Set<String>> graph = new HashMap<>();
+        Map<String, Set<String>> graph = new LinkedHashMap<>();
 
         for (ModuleDescriptor descriptor : descriptors.values()) {
             String moduleId = descriptor.id();
-            Set<String> dependencies = new HashSet<>();
+            Set<String> dependencies = new LinkedHashSet<>();
 
             for (String dependency : descriptor.dependencies()) {
                 if (descriptors.containsKey(dependency)) {
@@ -136,7 +290,6 @@ public class DefaultModuleLoader implements ModuleManager {
                 }
             }
         }
-        Collections.reverse(result);
         return result;
     }
 
@@ -174,15 +327,45 @@ public class DefaultModuleLoader implements ModuleManager {
             throw new ModuleException("Module already loaded: " + descriptor.id());
         }
 
+        ModuleInfo moduleInfo = createModule(descriptor, jarPath);
+        this.modulesById.put(descriptor.id(), moduleInfo);
+        this.dependencyGraph.add(descriptor.id(), descriptor.dependencies());
+
+        logger.info("Successfully loaded module: {}", descriptor.name());
+    }
+
+    /**
+     * Create and initialize a module instance in its own ClassLoader, without registering it.
+     */
+    protected ModuleInfo createModule(ModuleDescriptor descriptor, Path jarPath) throws ModuleException {
         URLClassLoader urlClassLoader = null;
+        Path classPath = jarPath;
 
         try {
-            urlClassLoader = new URLClassLoader(
-                    new URL[] { jarPath.toUri().toURL() },
-                    getClass().getClassLoader()
-            );
+            Class<?> mainClass = null;
+            ModuleIndex index = null;
+            ModuleTimingRecorder.Span classLoading = this.timingRecorder.start(descriptor.id(), ModulePhase.CLASS_LOADING);
+            try {
+                for (String library : descriptor.libraries()) {
+                    this.sharedLibraries.addLibrary(descriptor.id(), library);
+                }
+
+                classPath = shadowCopy(descriptor, jarPath);
+                urlClassLoader = new ModuleClassLoader(descriptor.id(), classPath, this.sharedLibraries, findDependencyLoaders(descriptor));
+
+                if (descriptor.index() != null) {
+                    index = loadIndex(descriptor, urlClassLoader);
+                } else {
+                    mainClass = urlClassLoader.loadClass(descriptor.main());
+                }
+            } finally {
+                classLoading.end(index != null || mainClass != null);
+            }
+
+            if (index != null) {
+                return createIndexedModule(descriptor, jarPath, urlClassLoader, index);
+            }
 
-            Class<?> mainClass = urlClassLoader.loadClass(descriptor.main());
             if (!Module.class.isAssignableFrom(mainClass)) {
                 throw new ModuleException("Main class does not implement Module interface: " + descriptor.main());
             }
@@ -190,27 +373,135 @@ public class DefaultModuleLoader implements ModuleManager {
             @SuppressWarnings("unchecked")
             Class<? extends Module> moduleClass = (Class<? extends Module>) mainClass;
 
-            Module module = moduleClass.getDeclaredConstructor().newInstance();
+            Module module = null;
+            ModuleTimingRecorder.Span construction = this.timingRecorder.start(descriptor.id(), ModulePhase.CONSTRUCTION);
+            try {
+                module = moduleClass.getDeclaredConstructor().newInstance();
+            } finally {
+                construction.end(module != null);
+            }
 
-            if (!(module instanceof AbstractModule)) {
+            if (!(module instanceof AbstractModule abstractModule)) {
                 throw new ModuleException("Module must extend AbstractModule: " + descriptor.main());
             }
 
-            AbstractModule abstractModule = (AbstractModule) module;
-            abstractModule.init(this.bot, descriptor);
-
-            ModuleInfo moduleInfo = new ModuleInfo(descriptor, jarPath, module, urlClassLoader);
-            this.modulesById.put(descriptor.id(), moduleInfo);
+            initModule(descriptor, () -> abstractModule.init(this.bot, descriptor));
 
-            logger.info("Successfully loaded module: {}", descriptor.name());
+            return new ModuleInfo(descriptor, jarPath, module, urlClassLoader);
+        } catch (ModuleException e) {
+            closeClassLoader(urlClassLoader);
+            throw e;
         } catch (ReflectiveOperationException e) {
             closeClassLoader(urlClassLoader);
             throw new ModuleException("Failed to load module class: " + descriptor.main(), e);
         } catch (IOException e) {
+            deleteShadowCopy(classPath);
             throw new ModuleException("Failed to create ClassLoader for module: " + descriptor.id(), e);
         }
     }
 
+    /**
+     * Load modules from a versioned copy of their JAR instead of the JAR itself, so that a JAR can be
+     * replaced in the modules directory while the classes of the running version are still read from it.
+     * Enabled by {@link #startWatching(Duration)}; enable it before {@link #loadModules()} so that the
+     * modules loaded at startup can be redeployed safely too.
+     * @param shadowCopies true to load modules from shadow copies
+     * @throws IOException if the shadow directory cannot be created
+     */
+    public synchronized void setShadowCopies(boolean shadowCopies) throws IOException {
+        if (shadowCopies && this.shadowDirectory == null) {
+            this.shadowDirectory = Files.createTempDirectory("orion-modules-");
+            this.shadowDirectory.toFile().deleteOnExit();
+        } else if (!shadowCopies) {
+            this.shadowDirectory = null;
+        }
+    }
+
+    /**
+     * Copy a module JAR to a path unique to this version of the module, if shadow copies are enabled.
+     * @return The path to load the module from
+     */
+    private Path shadowCopy(ModuleDescriptor descriptor, Path jarPath) throws IOException {
+        Path directory = this.shadowDirectory;
+        if (directory == null) {
+            return jarPath;
+        }
+        String version = descriptor.version().replaceAll("[^A-Za-z0-9._-]", "_");
+        Path shadow = directory.resolve(descriptor.id() + "-" + version + "-" + this.shadowSequence.incrementAndGet() + ".jar");
+        Files.copy(jarPath, shadow);
+        return shadow;
+    }
+
+    private void deleteShadowCopy(Path classPath) {
+        Path directory = this.shadowDirectory;
+        if (directory == null || !classPath.startsWith(directory)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(classPath);
+        } catch (IOException e) {
+            logger.warn("Failed to delete shadow copy {}", classPath.getFileName(), e);
+        }
+    }
+
+    /**
+     * Load the index generated by the annotation processor for a module.
+     */
+    private ModuleIndex loadIndex(ModuleDescriptor descriptor, URLClassLoader classLoader) throws ReflectiveOperationException {
+        Class<?> indexClass = classLoader.loadClass(descriptor.index());
+        if (!ModuleIndex.class.isAssignableFrom(indexClass)) {
+            throw new ModuleException("Index class does not implement ModuleIndex: " + descriptor.index());
+        }
+        return (ModuleIndex) indexClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Create a module through the index generated by the annotation processor, which instantiates
+     * the module and its registrations directly.
+     */
+    private ModuleInfo createIndexedModule(ModuleDescriptor descriptor, Path jarPath, URLClassLoader classLoader,
+                                           ModuleIndex index) {
+        AbstractModule module = null;
+        ModuleTimingRecorder.Span construction = this.timingRecorder.start(descriptor.id(), ModulePhase.CONSTRUCTION);
+        try {
+            module = index.createModule();
+        } finally {
+            construction.end(module != null);
+        }
+
+        AbstractModule indexedModule = module;
+        initModule(descriptor, () -> indexedModule.init(this.bot, descriptor, index));
+
+        return new ModuleInfo(descriptor, jarPath, module, classLoader);
+    }
+
+    /**
+     * Run the load phase of a module, timing it whatever its outcome.
+     */
+    private void initModule(ModuleDescriptor descriptor, Runnable init) {
+        boolean loaded = false;
+        ModuleTimingRecorder.Span load = this.timingRecorder.start(descriptor.id(), ModulePhase.LOAD);
+        try {
+            init.run();
+            loaded = true;
+        } finally {
+            load.end(loaded);
+        }
+    }
+
+    private List<ModuleClassLoader> findDependencyLoaders(ModuleDescriptor descriptor) {
+        List<ModuleClassLoader> loaders = new ArrayList<>();
+        Stream.concat(descriptor.dependencies().stream(), descriptor.softDependencies().stream())
+                .map(this.modulesById::get)
+                .filter(Objects::nonNull)
+                .forEach(info -> {
+                    if (info.classLoader() instanceof ModuleClassLoader loader) {
+                        loaders.add(loader);
+                    }
+                });
+        return loaders;
+    }
+
     private void closeClassLoader(URLClassLoader classLoader) {
         if (classLoader != null) {
             try {
@@ -219,13 +510,25 @@ public class DefaultModuleLoader implements ModuleManager {
             } catch (IOException e) {
                 logger.error("Failed to close ClassLoader", e);
             }
+            if (classLoader instanceof ModuleClassLoader moduleClassLoader) {
+                deleteShadowCopy(moduleClassLoader.getJarPath());
+            }
         }
     }
 
     @Override
     public int enableModules() {
+        if (this.enableParallelism > 1) {
+            return enableModulesInWaves();
+        }
+
         int enabledModules = 0;
-        for (String moduleId : this.modulesById.keySet()) {
+        for (ModuleInfo info : this.modulesById.values()) {
+            String moduleId = info.descriptor().id();
+            // A module may already have been enabled as the dependency of another one
+            if (info.module().isEnabled() || deferActivation(moduleId)) {
+                continue;
+            }
             if (enableModule(moduleId)) {
                 enabledModules++;
             }
@@ -233,18 +536,236 @@ public class DefaultModuleLoader implements ModuleManager {
         return enabledModules;
     }
 
+    /**
+     * Set how many modules of the same dependency level may be enabled concurrently by {@link #enableModules()}.
+     * A value of 1 (the default) enables modules one at a time.
+     * @param enableParallelism The maximum number of modules enabled concurrently
+     */
+    public void setEnableParallelism(int enableParallelism) {
+        if (enableParallelism < 1) {
+            throw new IllegalArgumentException("Enable parallelism must be at least 1");
+        }
+        this.enableParallelism = enableParallelism;
+    }
+
+    /**
+     * Set how long a single module may spend in {@code onEnable} when modules are enabled in parallel.
+     * The deadline counts from the start of the module's dependency level, waiting for a free thread included.
+     * A module exceeding it is reported as failed and its dependents are not enabled.
+     * @param enableTimeout The per-module enable timeout
+     */
+    public void setEnableTimeout(Duration enableTimeout) {
+        if (enableTimeout == null || enableTimeout.isNegative() || enableTimeout.isZero()) {
+            throw new IllegalArgumentException("Enable timeout must be positive");
+        }
+        this.enableTimeout = enableTimeout;
+    }
+
+    private int enableModulesInWaves() {
+        List<List<String>> waves = calculateDependencyLevels();
+        Set<String> failedModules = new HashSet<>();
+        int enabledModules = 0;
+
+        try (ModuleWaveExecutor executor = new ModuleWaveExecutor("enable", this.enableParallelism, this.enableTimeout)) {
+            for (List<String> wave : waves) {
+                List<String> ready = new ArrayList<>();
+
+                for (String moduleId : wave) {
+                    ModuleInfo info = this.modulesById.get(moduleId);
+                    if (info == null || info.module().isEnabled() || deferActivation(moduleId)) {
+                        continue;
+                    }
+
+                    Optional<String> failedDependency = info.descriptor().dependencies().stream()
+                            .filter(failedModules::contains)
+                            .findFirst();
+                    if (failedDependency.isPresent()) {
+                        logger.error("Skipping module {}: dependency {} failed to enable", moduleId, failedDependency.get());
+                        failedModules.add(moduleId);
+                        continue;
+                    }
+                    ready.add(moduleId);
+                }
+
+                for (Map.Entry<String, ModuleWaveExecutor.Outcome> outcome : executor.runWave(ready, this::enableModule, this::rollBackLateEnable).entrySet()) {
+                    if (outcome.getValue() == ModuleWaveExecutor.Outcome.SUCCESS) {
+                        enabledModules++;
+                    } else {
+                        failedModules.add(outcome.getKey());
+                    }
+                }
+            }
+        }
+        return enabledModules;
+    }
+
+    /**
+     * Disable a module whose enable completed after its deadline, its dependents were already skipped as failed.
+     */
+    private void rollBackLateEnable(String moduleId, CompletableFuture<Boolean> completion) {
+        trackAbandoned(moduleId, completion.thenAccept(enabled -> {
+            if (enabled) {
+                logger.warn("Module {} enabled after its deadline, disabling it", moduleId);
+                disableModule(moduleId);
+            }
+        }));
+    }
+
+    /**
+     * Remember an enable or disable abandoned by its wave, the module must not be torn down while it runs.
+     */
+    private void trackAbandoned(String moduleId, CompletableFuture<?> completion) {
+        this.abandonedTasks.put(moduleId, completion);
+        completion.whenComplete((result, error) -> this.abandonedTasks.remove(moduleId, completion));
+    }
+
+    /**
+     * Wait for an abandoned enable or disable of a module to return, bounded by the disable timeout.
+     * @return true if no abandoned task of the module is still running
+     */
+    private boolean awaitAbandoned(String moduleId) {
+        CompletableFuture<?> completion = this.abandonedTasks.get(moduleId);
+        if (completion == null) {
+            return true;
+        }
+        try {
+            completion.get(this.disableTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Install the activation stubs of a module declaring lazy activation triggers instead of enabling it.
+     * @return true if the module will be enabled on first use
+     */
+    private boolean deferActivation(String moduleId) {
+        ModuleInfo info = this.modulesById.get(moduleId);
+        if (info == null || this.pendingActivations.containsKey(moduleId)) {
+            return info != null;
+        }
+        if (info.module().isEnabled()) {
+            return false;
+        }
+
+        ActivationTriggers triggers;
+        try {
+            triggers = info.descriptor().activationTriggers();
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid activation triggers for module {}, enabling it eagerly: {}", moduleId, e.getMessage());
+            return false;
+        }
+
+        if (!triggers.isLazy()) {
+            return false;
+        }
+
+        LazyActivation activation = new LazyActivation(this.bot, (AbstractModule) info.module(), triggers, this::enableModule);
+        try {
+            activation.install(activationScheduler());
+        } catch (Exception e) {
+            logger.error("Failed to install activation triggers for module {}, enabling it eagerly", moduleId, e);
+            activation.cancel();
+            return false;
+        }
+
+        this.pendingActivations.put(moduleId, activation);
+        logger.info("Module {} will be enabled on first use", moduleId);
+        return true;
+    }
+
+    private synchronized ScheduledExecutorService activationScheduler() {
+        if (this.activationScheduler == null) {
+            this.activationScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("orion-module-activation"));
+        }
+        return this.activationScheduler;
+    }
+
+    /**
+     * Group the loaded modules by dependency level. Modules of level 0 have no loaded dependency,
+     * and every module only depends on modules of a lower level, so the modules of one level can be
+     * handled concurrently once the previous levels are done.
+     * @return The loaded module ids grouped by ascending dependency level
+     */
+    protected List<List<String>> calculateDependencyLevels() {
+        return this.dependencyGraph.getLevels();
+    }
+
     @Override
     public int disableModules() {
-        int disabledModules = 0;
-        List<String> moduleIds = new ArrayList<>(this.modulesById.keySet());
-        Collections.reverse(moduleIds);
+        return disableAllModules().disabled().size();
+    }
 
-        for (String moduleId : moduleIds) {
-            if (disableModule(moduleId)) {
-                disabledModules++;
+    /**
+     * Disable every enabled module, leaf modules first. Modules of the same dependency level are
+     * disabled concurrently, and each one gets a hard deadline so that a hung {@code onDisable}
+     * cannot hold the shutdown.
+     * @return The report listing which modules were disabled, failed or overran their deadline
+     */
+    public ShutdownReport disableAllModules() {
+        List<List<String>> waves = calculateDependencyLevels();
+        Collections.reverse(waves);
+
+        List<String> disabled = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+        List<String> timedOut = new ArrayList<>();
+
+        try (ModuleWaveExecutor executor = new ModuleWaveExecutor("disable", this.shutdownParallelism, this.disableTimeout)) {
+            for (List<String> wave : waves) {
+                List<String> enabled = wave.stream()
+                        .filter(moduleId -> {
+                            ModuleInfo info = this.modulesById.get(moduleId);
+                            return info != null && info.module().isEnabled();
+                        })
+                        .toList();
+
+                executor.runWave(enabled, this::disableModule, this::trackAbandoned).forEach((moduleId, outcome) -> {
+                    switch (outcome) {
+                        case SUCCESS -> disabled.add(moduleId);
+                        case FAILED -> failed.add(moduleId);
+                        case TIMED_OUT -> timedOut.add(moduleId);
+                    }
+                });
             }
         }
-        return disabledModules;
+
+        ShutdownReport report = new ShutdownReport(disabled, failed, timedOut);
+        if (!report.timedOut().isEmpty()) {
+            logger.warn("Modules overran the disable deadline of {} ms: {}", this.disableTimeout.toMillis(), report.timedOut());
+        }
+        if (!report.failed().isEmpty()) {
+            logger.warn("Modules failed to disable: {}", report.failed());
+        }
+        return report;
+    }
+
+    /**
+     * Set how many modules of the same dependency level may be disabled concurrently on shutdown.
+     * @param shutdownParallelism The maximum number of modules disabled concurrently
+     */
+    public void setShutdownParallelism(int shutdownParallelism) {
+        if (shutdownParallelism < 1) {
+            throw new IllegalArgumentException("Shutdown parallelism must be at least 1");
+        }
+        this.shutdownParallelism = shutdownParallelism;
+    }
+
+    /**
+     * Set the hard deadline given to each module's {@code onDisable} by {@link #disableAllModules()}.
+     * The deadline counts from the start of the module's dependency level, waiting for a free thread included.
+     * @param disableTimeout The per-module disable timeout
+     */
+    public void setDisableTimeout(Duration disableTimeout) {
+        if (disableTimeout == null || disableTimeout.isNegative() || disableTimeout.isZero()) {
+            throw new IllegalArgumentException("Disable timeout must be positive");
+        }
+        this.disableTimeout = disableTimeout;
     }
 
     @Override
@@ -276,7 +797,17 @@ public class DefaultModuleLoader implements ModuleManager {
             logger.info("Enabling module: {}", info.descriptor().name());
 
             AbstractModule abstractModule = (AbstractModule) info.module();
-            abstractModule.enable();
+            ModuleTimingRecorder.Span span = this.timingRecorder.start(moduleId, ModulePhase.ENABLE);
+            try {
+                abstractModule.enable();
+            } finally {
+                span.end(abstractModule.isEnabled());
+            }
+
+            LazyActivation pendingActivation = this.pendingActivations.remove(moduleId);
+            if (pendingActivation != null) {
+                pendingActivation.complete();
+            }
 
             logger.info("Module {} enabled successfully", info.descriptor().name());
             return true;
@@ -300,23 +831,39 @@ public class DefaultModuleLoader implements ModuleManager {
             return false;
         }
 
-        List<String> dependentModules = findDependentModules(moduleId);
+        List<ModuleInfo> dependentModules = this.dependencyGraph.getTeardownOrder(moduleId).stream()
+                .filter(dependentId -> !dependentId.equals(moduleId))
+                .map(this.modulesById::get)
+                .filter(dependentInfo -> dependentInfo != null && dependentInfo.module().isEnabled())
+                .toList();
         if (!dependentModules.isEmpty()) {
-            logger.info("Module {} is required by: {}", moduleId, dependentModules);
+            logger.info("Module {} is required by: {}", moduleId,
+                    dependentModules.stream().map(dependentInfo -> dependentInfo.descriptor().id()).toList());
 
-            for (String dependentId : dependentModules) {
-                if (!disableModule(dependentId)) {
-                    logger.error("Failed to disable dependent module: {}", dependentId);
+            for (ModuleInfo dependentInfo : dependentModules) {
+                if (dependentInfo.module().isEnabled() && !disableLoadedModule(dependentInfo)) {
+                    logger.error("Failed to disable dependent module: {}", dependentInfo.descriptor().id());
                     return false;
                 }
             }
         }
 
+        return disableLoadedModule(info);
+    }
+
+    private boolean disableLoadedModule(ModuleInfo info) {
+        String moduleId = info.descriptor().id();
+
         try {
             logger.info("Disabling module: {}", info.descriptor().name());
 
             AbstractModule abstractModule = (AbstractModule) info.module();
-            abstractModule.disable();
+            ModuleTimingRecorder.Span span = this.timingRecorder.start(moduleId, ModulePhase.DISABLE);
+            try {
+                abstractModule.disable();
+            } finally {
+                span.end(!abstractModule.isEnabled());
+            }
 
             logger.info("Module {} disabled successfully", info.descriptor().name());
             return true;
@@ -326,16 +873,316 @@ public class DefaultModuleLoader implements ModuleManager {
         }
     }
 
-    private List<String> findDependentModules(String moduleId) {
-        List<String> dependents = new ArrayList<>();
+    /**
+     * Start watching the modules directory so that added, replaced or removed JARs are deployed
+     * without a restart. Only the affected module and its dependents are touched. Modules loaded from
+     * then on are loaded from shadow copies, see {@link #setShadowCopies(boolean)}.
+     * @param debounce How long a JAR must stay unchanged before it is handled
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void startWatching(Duration debounce) throws IOException {
+        if (this.directoryWatcher != null) {
+            return;
+        }
 
-        for (Map.Entry<String, ModuleInfo> entry : this.modulesById.entrySet()) {
-            if (entry.getValue().descriptor().dependencies().contains(moduleId)) {
-                dependents.add(entry.getKey());
+        if (this.shadowDirectory == null) {
+            setShadowCopies(true);
+            if (!this.modulesById.isEmpty()) {
+                logger.warn("Modules loaded before watching are read from their JAR, enable shadow copies before loading them to replace their JARs safely");
             }
         }
 
-        return dependents;
+        ModuleDirectoryWatcher watcher = new ModuleDirectoryWatcher(this, this.modulesDirectory, debounce);
+        watcher.start();
+        this.directoryWatcher = watcher;
+    }
+
+    /**
+     * Stop watching the modules directory, waiting for a change being applied to complete.
+     */
+    public void stopWatching() {
+        ModuleDirectoryWatcher watcher;
+        synchronized (this) {
+            watcher = this.directoryWatcher;
+            this.directoryWatcher = null;
+        }
+        // Joined outside the lock, the watcher thread needs it to finish deploying a change
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Deploy a module JAR which was added to or replaced in the modules directory.
+     * A new module is loaded and enabled, or activated lazily if it declares activation triggers.
+     * A replaced module is swapped for the new version, and its
+     * dependents are reloaded against it, keeping their enabled state.
+     * @param jarPath The module JAR
+     * @return true if the module was deployed successfully
+     */
+    public synchronized boolean deployModule(Path jarPath) {
+        ModuleDescriptor descriptor;
+        try {
+            descriptor = loadModuleDescriptor(jarPath);
+        } catch (ModuleException e) {
+            logger.error("Failed to load module descriptor from JAR: {}", jarPath.getFileName(), e);
+            return false;
+        }
+
+        if (descriptor == null) {
+            logger.warn("Ignoring JAR without module.yml: {}", jarPath.getFileName());
+            return false;
+        }
+
+        ModuleInfo previous = findModuleByJar(jarPath);
+        if (previous != null && !previous.descriptor().id().equals(descriptor.id())) {
+            logger.info("JAR {} now provides module {} instead of {}", jarPath.getFileName(), descriptor.id(), previous.descriptor().id());
+            if (!undeployModule(jarPath)) {
+                return false;
+            }
+            previous = null;
+        }
+
+        ModuleInfo existing = this.modulesById.get(descriptor.id());
+        if (existing != null && previous == null) {
+            logger.error("Module {} is already loaded from {}", descriptor.id(), existing.jarPath().getFileName());
+            return false;
+        }
+
+        if (existing == null) {
+            try {
+                loadModule(descriptor, jarPath);
+            } catch (ModuleException e) {
+                logger.error("Failed to load module {}: {}", descriptor.id(), e.getMessage(), e);
+                return false;
+            }
+            return deferActivation(descriptor.id()) || enableModule(descriptor.id());
+        }
+
+        return replaceModule(existing, descriptor, jarPath);
+    }
+
+    /**
+     * Undeploy the module loaded from a JAR which was removed from the modules directory,
+     * unloading its dependents first. If a module cannot be unloaded, the dependents already
+     * unloaded are loaded again.
+     * @param jarPath The module JAR
+     * @return true if the module and all its dependents were unloaded
+     */
+    public synchronized boolean undeployModule(Path jarPath) {
+        ModuleInfo info = findModuleByJar(jarPath);
+        if (info == null) {
+            logger.debug("No module loaded from JAR: {}", jarPath.getFileName());
+            return false;
+        }
+
+        String moduleId = info.descriptor().id();
+        List<String> dependents = this.dependencyGraph.getTeardownOrder(moduleId);
+        dependents = dependents.subList(0, dependents.size() - 1);
+
+        if (!dependents.isEmpty()) {
+            logger.info("Unloading modules depending on {}: {}", moduleId, dependents);
+        }
+        Set<String> enabledDependents = dependents.stream()
+                .filter(dependentId -> this.modulesById.get(dependentId).module().isEnabled())
+                .collect(Collectors.toSet());
+
+        List<ModuleInfo> unloaded = new ArrayList<>();
+        for (String dependentId : dependents) {
+            ModuleInfo dependent = this.modulesById.get(dependentId);
+            if (!unloadModule(dependentId)) {
+                logger.error("Failed to unload dependent module {} of {}", dependentId, moduleId);
+                restoreModules(unloaded, enabledDependents);
+                return false;
+            }
+            unloaded.add(0, dependent);
+        }
+        if (!unloadModule(moduleId)) {
+            restoreModules(unloaded, enabledDependents);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean replaceModule(ModuleInfo info, ModuleDescriptor descriptor, Path jarPath) {
+        String moduleId = info.descriptor().id();
+
+        // Dependents are linked against the classes of the current version, they have to be reloaded with it
+        if (this.blueGreenReload && this.dependencyGraph.getDependents(moduleId).isEmpty()) {
+            return swapModule(info, jarPath);
+        }
+        boolean wasEnabled = info.module().isEnabled();
+
+        List<ModuleInfo> dependents = this.dependencyGraph.sortByLevel(this.dependencyGraph.getTransitiveDependents(moduleId)).stream()
+                .map(this.modulesById::get)
+                .toList();
+        Set<String> enabledDependents = dependents.stream()
+                .filter(dependent -> dependent.module().isEnabled())
+                .map(dependent -> dependent.descriptor().id())
+                .collect(Collectors.toSet());
+
+        for (int i = dependents.size() - 1; i >= 0; i--) {
+            String dependentId = dependents.get(i).descriptor().id();
+            if (!unloadModule(dependentId)) {
+                logger.error("Failed to unload dependent module {} during redeploy of {}", dependentId, moduleId);
+                restoreModules(dependents.subList(i + 1, dependents.size()), enabledDependents);
+                return false;
+            }
+        }
+
+        if (!unloadModule(moduleId)) {
+            logger.error("Failed to unload module {} during redeploy", moduleId);
+            restoreModules(dependents, enabledDependents);
+            return false;
+        }
+
+        boolean success = true;
+        try {
+            loadModule(descriptor, jarPath);
+            success = !wasEnabled || enableModule(moduleId);
+        } catch (ModuleException e) {
+            logger.error("Failed to redeploy module {}: {}", moduleId, e.getMessage(), e);
+            success = false;
+        }
+
+        return restoreModules(dependents, enabledDependents) && success;
+    }
+
+    /**
+     * Load again modules unloaded by a redeploy or an undeploy, and enable the ones which were enabled.
+     * The modules which cannot be restored are reported, they are left unloaded or disabled.
+     * @param modules The unloaded modules, dependencies first
+     * @param enabledIds The ids of the modules to enable
+     * @return true if every module was restored
+     */
+    private boolean restoreModules(List<ModuleInfo> modules, Set<String> enabledIds) {
+        List<String> failed = new ArrayList<>();
+        for (ModuleInfo module : modules) {
+            String moduleId = module.descriptor().id();
+            try {
+                loadModule(module.descriptor(), module.jarPath());
+                if (enabledIds.contains(moduleId) && !enableModule(moduleId)) {
+                    failed.add(moduleId);
+                }
+            } catch (ModuleException e) {
+                logger.error("Failed to reload module {}: {}", moduleId, e.getMessage(), e);
+                failed.add(moduleId);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            logger.error("Modules could not be restored: {}", failed);
+        }
+        return failed.isEmpty();
+    }
+
+    private ModuleInfo findModuleByJar(Path jarPath) {
+        Path normalized = jarPath.toAbsolutePath().normalize();
+        for (ModuleInfo info : this.modulesById.values()) {
+            if (info.jarPath().toAbsolutePath().normalize().equals(normalized)) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Enable blue/green reloads. {@link #reloadModule(String)} then loads and enables the new version
+     * next to the running one, swaps their registrations, and only retires the old version once it
+     * drained. If the new version fails to load or enable, the old version keeps running.
+     * @param blueGreenReload true to reload modules without downtime
+     */
+    public void setBlueGreenReload(boolean blueGreenReload) {
+        this.blueGreenReload = blueGreenReload;
+    }
+
+    /**
+     * Set how long a blue/green reload waits for in-flight executions of the old version
+     * before closing its ClassLoader.
+     * @param reloadDrainTimeout The drain timeout
+     */
+    public void setReloadDrainTimeout(Duration reloadDrainTimeout) {
+        if (reloadDrainTimeout == null || reloadDrainTimeout.isNegative()) {
+            throw new IllegalArgumentException("Reload drain timeout cannot be negative");
+        }
+        this.reloadDrainTimeout = reloadDrainTimeout;
+    }
+
+    private boolean swapModule(ModuleInfo current, Path jarPath) {
+        String moduleId = current.descriptor().id();
+
+        ModuleDescriptor descriptor;
+        ModuleInfo replacement;
+        try {
+            descriptor = loadModuleDescriptor(jarPath);
+            if (descriptor == null || !descriptor.id().equals(moduleId)) {
+                logger.error("JAR {} does not provide module {} anymore, keeping current version", jarPath.getFileName(), moduleId);
+                return false;
+            }
+
+            logger.info("Loading new version of module: {} v{}", descriptor.name(), descriptor.version());
+            replacement = createModule(descriptor, jarPath);
+        } catch (ModuleException e) {
+            logger.error("Failed to load new version of module {}, keeping current version: {}", moduleId, e.getMessage(), e);
+            return false;
+        }
+
+        AbstractModule previous = (AbstractModule) current.module();
+        AbstractModule next = (AbstractModule) replacement.module();
+
+        if (previous.isEnabled()) {
+            ModuleTimingRecorder.Span span = this.timingRecorder.start(moduleId, ModulePhase.ENABLE);
+            try {
+                next.enableStaged();
+            } catch (Exception e) {
+                logger.error("Failed to enable new version of module {}, keeping current version: {}", moduleId, e.getMessage(), e);
+                discardModule(replacement);
+                return false;
+            } finally {
+                span.end(next.isEnabled());
+            }
+            next.takeOver(previous);
+        }
+
+        LazyActivation pendingActivation = this.pendingActivations.remove(moduleId);
+        if (pendingActivation != null) {
+            pendingActivation.cancel();
+        }
+
+        this.modulesById.put(moduleId, replacement);
+        this.dependencyGraph.add(moduleId, descriptor.dependencies());
+
+        if (pendingActivation != null) {
+            deferActivation(moduleId);
+        }
+        logger.info("Module {} swapped to v{}", moduleId, descriptor.version());
+
+        try {
+            if (!previous.awaitDrained(this.reloadDrainTimeout)) {
+                logger.warn("Previous version of module {} still has {} executions in flight after {} ms, closing it anyway",
+                        moduleId, previous.getInFlightExecutions(), this.reloadDrainTimeout.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        discardModule(current);
+        return true;
+    }
+
+    private void discardModule(ModuleInfo info) {
+        boolean unloaded = false;
+        ModuleTimingRecorder.Span span = this.timingRecorder.start(info.descriptor().id(), ModulePhase.UNLOAD);
+        try {
+            ((AbstractModule) info.module()).onUnload();
+            unloaded = true;
+        } catch (Exception e) {
+            logger.error("Error during module unload: {}", info.descriptor().id(), e);
+        } finally {
+            closeClassLoader(info.classLoader());
+            span.end(unloaded);
+        }
+        this.leakDetector.track(info.descriptor().id(), info.classLoader());
     }
 
     @Override
@@ -347,6 +1194,12 @@ public class DefaultModuleLoader implements ModuleManager {
             return false;
         }
 
+        if (this.blueGreenReload) {
+            synchronized (this) {
+                return replaceModule(info, info.descriptor(), info.jarPath());
+            }
+        }
+
         boolean wasEnabled = info.module().isEnabled();
 
         if (wasEnabled && !disableModule(moduleId)) {
@@ -385,6 +1238,11 @@ public class DefaultModuleLoader implements ModuleManager {
             return false;
         }
 
+        if (!awaitAbandoned(moduleId)) {
+            logger.error("Cannot unload module {} - still running past its deadline", moduleId);
+            return false;
+        }
+
         if (info.module().isEnabled()) {
             if (!disableModule(moduleId)) {
                 logger.error("Failed to disable module {} before unloading", moduleId);
@@ -392,12 +1250,19 @@ public class DefaultModuleLoader implements ModuleManager {
             }
         }
 
-        List<String> dependentModules = findDependentModules(moduleId);
+        List<String> dependentModules = this.dependencyGraph.getDependents(moduleId);
         if (!dependentModules.isEmpty()) {
             logger.error("Cannot unload module {} - required by: {}", moduleId, dependentModules);
             return false;
         }
 
+        LazyActivation pendingActivation = this.pendingActivations.remove(moduleId);
+        if (pendingActivation != null) {
+            pendingActivation.cancel();
+        }
+
+        boolean unloaded = false;
+        ModuleTimingRecorder.Span span = this.timingRecorder.start(moduleId, ModulePhase.UNLOAD);
         try {
             logger.info("Unloading module: {}", info.descriptor().name());
 
@@ -405,10 +1270,11 @@ public class DefaultModuleLoader implements ModuleManager {
             abstractModule.onUnload();
 
             this.modulesById.remove(moduleId);
+            this.dependencyGraph.remove(moduleId);
 
             closeClassLoader(info.classLoader());
-
-            System.gc();
+            unloaded = true;
+            this.leakDetector.track(moduleId, info.classLoader());
 
             logger.info("Module {} unloaded successfully", info.descriptor().name());
             return true;
@@ -416,7 +1282,10 @@ public class DefaultModuleLoader implements ModuleManager {
         } catch (Exception e) {
             logger.error("Error during module unload: {}", moduleId, e);
             this.modulesById.put(moduleId, info);
+            this.dependencyGraph.add(moduleId, info.descriptor().dependencies());
             return false;
+        } finally {
+            span.end(unloaded);
         }
     }
 
@@ -424,18 +1293,48 @@ public class DefaultModuleLoader implements ModuleManager {
     public void unloadAllModules() {
         logger.info("Unloading all modules...");
 
-        disableModules();
+        stopWatching();
+
+        disableAllModules();
 
-        List<String> moduleIds = new ArrayList<>(this.modulesById.keySet());
-        Collections.reverse(moduleIds);
+        List<List<String>> waves = calculateDependencyLevels();
+        Collections.reverse(waves);
 
-        for (String moduleId : moduleIds) {
-            unloadModule(moduleId);
+        for (List<String> wave : waves) {
+            for (String moduleId : wave) {
+                unloadModule(moduleId);
+            }
         }
 
+        synchronized (this) {
+            if (this.activationScheduler != null) {
+                this.activationScheduler.shutdownNow();
+                this.activationScheduler = null;
+            }
+        }
+        this.leakDetector.close();
+
         logger.info("All modules unloaded");
     }
 
+    /**
+     * Get the detector reporting unloaded module ClassLoaders which are never collected.
+     * @return The ClassLoader leak detector
+     */
+    public ClassLoaderLeakDetector getLeakDetector() {
+        return this.leakDetector;
+    }
+
+    @Override
+    public ModuleTimings getModuleTimings(String moduleId) {
+        return this.timingRecorder.get(moduleId);
+    }
+
+    @Override
+    public Collection<ModuleTimings> getAllModuleTimings() {
+        return this.timingRecorder.getAll();
+    }
+
     @Override
     public Module getModule(String moduleId) {
         ModuleInfo info = this.modulesById.get(moduleId);
@@ -464,11 +1363,10 @@ public class DefaultModuleLoader implements ModuleManager {
 
     @Override
     public List<String> getModuleDependencies(String moduleId) {
-        ModuleInfo info = this.modulesById.get(moduleId);
-        return info != null ?
-                new ArrayList<>(info.descriptor().dependencies()) :
-                Collections.emptyList();
+        return new ArrayList<>(this.dependencyGraph.getDependencies(moduleId));
     }
 
+    protected record ScannedDescriptor(Path jarPath, ModuleDescriptor descriptor, ModuleException error) {}
+
     protected record ModuleInfo(ModuleDescriptor descriptor, Path jarPath, Module module, URLClassLoader classLoader) {}
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.Bot;
+import fr.orion.api.command.Command;
+import fr.orion.api.command.CommandReplies;
+import fr.orion.api.event.EventRegistry;
+import fr.orion.api.module.AbstractModule;
+import fr.orion.api.module.ActivationTriggers;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Stubs standing in for a lazily activated module until one of its triggers fires.
+ * <p>
+ * Command triggers are registered as stub commands publishing the module's real command data, so Discord
+ * already knows the full command. The first invocation enables the module, whose real commands replace the
+ * stubs, and forwards the interaction to the real command. Event triggers share one cheap JDA listener which
+ * only checks the event type, and the triggering event is replayed to the module's listeners once enabled.
+ */
+class LazyActivation {
+    private static final Logger logger = LoggerFactory.getLogger(LazyActivation.class);
+
+    private final Bot bot;
+    private final AbstractModule module;
+    private final ActivationTriggers triggers;
+    private final Predicate<String> activator;
+    private final List<Command> stubCommands = new ArrayList<>();
+    private final List<Class<? extends GenericEvent>> eventTypes = new ArrayList<>();
+    private EventListener eventStub;
+    private ScheduledFuture<?> scheduledActivation;
+
+    /**
+     * @param activator Enables the module by id and returns true on success
+     */
+    LazyActivation(Bot bot, AbstractModule module, ActivationTriggers triggers, Predicate<String> activator) {
+        this.bot = bot;
+        this.module = module;
+        this.triggers = triggers;
+        this.activator = activator;
+    }
+
+    void install(ScheduledExecutorService scheduler) {
+        for (String commandName : this.triggers.commands()) {
+            StubCommand stub = new StubCommand(findCommandData(commandName));
+            this.stubCommands.add(stub);
+            this.bot.getCommandRegistry().registerCommand(stub, this.module);
+        }
+
+        ClassLoader classLoader = this.module.getClass().getClassLoader();
+        for (String eventType : this.triggers.events()) {
+            try {
+                this.eventTypes.add(Class.forName(eventType, false, classLoader).asSubclass(GenericEvent.class));
+            } catch (ClassNotFoundException | ClassCastException e) {
+                logger.error("Unknown activation event {} for module {}", eventType, this.module.getId());
+            }
+        }
+        if (!this.eventTypes.isEmpty()) {
+            this.eventStub = this::onEvent;
+            EventRegistry eventRegistry = this.bot.getEventRegistry();
+            if (eventRegistry != null) {
+                eventRegistry.registerListener(this.eventStub, Set.copyOf(this.eventTypes));
+            } else {
+                this.bot.getJDA().addEventListener(this.eventStub);
+            }
+        }
+
+        if (this.triggers.schedule() != null) {
+            this.scheduledActivation = scheduler.schedule(this::activate,
+                    this.triggers.schedule().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private SlashCommandData findCommandData(String commandName) {
+        for (SlashCommandData data : this.module.describeCommands()) {
+            if (data.getName().equals(commandName)) {
+                return data;
+            }
+        }
+
+        logger.warn("Module {} does not describe command {}, publishing it without options until first use",
+                this.module.getId(), commandName);
+        return Commands.slash(commandName, this.module.getDescription().isBlank() ? commandName : this.module.getDescription());
+    }
+
+    private void onEvent(GenericEvent event) {
+        for (Class<? extends GenericEvent> eventType : this.eventTypes) {
+            if (eventType.isInstance(event)) {
+                if (activate()) {
+                    this.module.deliverEvent(event);
+                }
+                return;
+            }
+        }
+    }
+
+    private synchronized boolean activate() {
+        if (this.module.isEnabled()) {
+            return true;
+        }
+
+        logger.info("Activating module {} on first use", this.module.getId());
+        return this.activator.test(this.module.getId()) || this.module.isEnabled();
+    }
+
+    /**
+     * Remove the event stub and the scheduled activation once the module is enabled.
+     * Stub commands are left to be replaced by the module's real commands.
+     */
+    void complete() {
+        if (this.eventStub != null) {
+            EventRegistry eventRegistry = this.bot.getEventRegistry();
+            if (eventRegistry != null) {
+                eventRegistry.unregisterListener(this.eventStub);
+            } else {
+                this.bot.getJDA().removeEventListener(this.eventStub);
+            }
+            this.eventStub = null;
+        }
+        if (this.scheduledActivation != null) {
+            this.scheduledActivation.cancel(false);
+            this.scheduledActivation = null;
+        }
+    }
+
+    /**
+     * Remove every stub, the module being unloaded without ever being activated.
+     */
+    void cancel() {
+        complete();
+        for (Command stub : this.stubCommands) {
+            if (this.bot.getCommandRegistry().getCommand(stub.getName()) == stub) {
+                this.bot.getCommandRegistry().unregisterCommand(stub);
+            }
+        }
+        this.stubCommands.clear();
+    }
+
+    private final class StubCommand implements Command {
+        private final SlashCommandData data;
+
+        private StubCommand(SlashCommandData data) {
+            this.data = data;
+        }
+
+        @Override
+        public String getName() {
+            return this.data.getName();
+        }
+
+        @Override
+        public String getDescription() {
+            return this.data.getDescription();
+        }
+
+        @Override
+        public SlashCommandData buildCommandData() {
+            return this.data;
+        }
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+            Command command = activate() ? bot.getCommandRegistry().getCommand(getName()) : null;
+
+            if (command == null || command == this) {
+                CommandReplies.replyEphemeral(event, "This command is currently unavailable.");
+                return;
+            }
+            command.execute(event);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package fr.orion.api.module.loader;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * ClassLoader of a single module.
+ * <p>
+ * Classes are first looked up in the parent (shared libraries, then the API), then in the dependencies
+ * of the module through a package index computed when the loader is created, and finally in the module
+ * JAR itself. A dependency lookup goes straight to the loader owning the package and never walks a
+ * chain of loaders, and the loader is parallel capable so modules can be loaded concurrently.
+ */
+class ModuleClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final String moduleId;
+    private final Path jarPath;
+    private final Set<String> classNames;
+    private final Set<String> packages;
+    private final Map<String, ModuleClassLoader> dependencyPackages;
+
+    /**
+     * @param moduleId The module id
+     * @param jarPath The module JAR
+     * @param parent The parent ClassLoader
+     * @param dependencies The loaders of the loaded dependencies, in declaration order
+     * @throws IOException if the module JAR cannot be read
+     */
+    ModuleClassLoader(String moduleId, Path jarPath, ClassLoader parent, List<ModuleClassLoader> dependencies) throws IOException {
+        super(moduleId, new URL[] { jarPath.toUri().toURL() }, parent);
+        this.moduleId = moduleId;
+        this.jarPath = jarPath;
+        this.classNames = scanClassNames(jarPath);
+        this.packages = new HashSet<>();
+        this.classNames.forEach(className -> this.packages.add(packageOf(className)));
+
+        Map<String, ModuleClassLoader> index = new HashMap<>();
+        for (ModuleClassLoader dependency : dependencies) {
+            for (String packageName : dependency.packages) {
+                index.putIfAbsent(packageName, dependency);
+            }
+        }
+        this.packages.forEach(index::remove);
+        this.dependencyPackages = Collections.unmodifiableMap(index);
+    }
+
+    /**
+     * @return The id of the module owning this loader
+     */
+    String getModuleId() {
+        return this.moduleId;
+    }
+
+    /**
+     * @return The JAR the classes are loaded from
+     */
+    Path getJarPath() {
+        return this.jarPath;
+    }
+
+    /**
+     * @return The names of the classes of the module JAR, read when the loader was created
+     */
+    Set<String> getClassNames() {
+        return this.classNames;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+
+            if (loaded == null) {
+                try {
+                    loaded = getParent().loadClass(name);
+                } catch (ClassNotFoundException ignored) {
+                    ModuleClassLoader owner = this.dependencyPackages.get(packageOf(name));
+                    loaded = owner != null ? owner.loadOwnClass(name) : findClass(name);
+                }
+            }
+
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private Class<?> loadOwnClass(String name) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            return loaded != null ? loaded : findClass(name);
+        }
+    }
+
+    private static Set<String> scanClassNames(Path jarPath) throws IOException {
+        Set<String> classNames = new HashSet<>();
+        try (JarFile jarFile = new JarFile(jarPath.toFile())) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                String name = entry.getName();
+                if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(classNames);
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot == -1 ? "" : className.substring(0, lastDot);
+    }
+}
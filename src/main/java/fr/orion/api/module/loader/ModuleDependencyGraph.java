@@ -0,0 +1,169 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.module.loader.exception.ModuleException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Dependency graph of the loaded modules, indexed in both directions.
+ * <p>
+ * Declared dependencies are kept even when the dependency is not loaded, so that the reverse index
+ * is already correct when it gets loaded later. Queries only ever return loaded modules.
+ * The dependency levels are computed lazily and cached until the graph changes.
+ */
+class ModuleDependencyGraph {
+    private final Map<String, List<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    private Map<String, Integer> levels;
+
+    /**
+     * Add a loaded module, or replace its declared dependencies if it is already present.
+     */
+    synchronized void add(String moduleId, Collection<String> moduleDependencies) {
+        remove(moduleId);
+
+        this.dependencies.put(moduleId, List.copyOf(moduleDependencies));
+        for (String dependencyId : moduleDependencies) {
+            this.dependents.computeIfAbsent(dependencyId, k -> new TreeSet<>()).add(moduleId);
+        }
+        this.levels = null;
+    }
+
+    /**
+     * Remove an unloaded module.
+     */
+    synchronized void remove(String moduleId) {
+        List<String> previous = this.dependencies.remove(moduleId);
+        if (previous == null) {
+            return;
+        }
+
+        for (String dependencyId : previous) {
+            Set<String> reverse = this.dependents.get(dependencyId);
+            if (reverse != null) {
+                reverse.remove(moduleId);
+                if (reverse.isEmpty()) {
+                    this.dependents.remove(dependencyId);
+                }
+            }
+        }
+        this.levels = null;
+    }
+
+    /**
+     * Get the declared dependencies of a loaded module.
+     */
+    synchronized List<String> getDependencies(String moduleId) {
+        return this.dependencies.getOrDefault(moduleId, Collections.emptyList());
+    }
+
+    /**
+     * Get the loaded modules directly depending on a module.
+     */
+    synchronized List<String> getDependents(String moduleId) {
+        Set<String> reverse = this.dependents.get(moduleId);
+        if (reverse == null) {
+            return Collections.emptyList();
+        }
+        return reverse.stream()
+                .filter(this.dependencies::containsKey)
+                .toList();
+    }
+
+    /**
+     * Get every loaded module depending directly or indirectly on a module.
+     */
+    synchronized Set<String> getTransitiveDependents(String moduleId) {
+        Set<String> result = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(getDependents(moduleId));
+
+        while (!queue.isEmpty()) {
+            String dependentId = queue.poll();
+            if (result.add(dependentId)) {
+                queue.addAll(getDependents(dependentId));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the order in which a module and its transitive dependents must be disabled or unloaded:
+     * dependents first, leaf modules before the modules they depend on, the module itself last.
+     */
+    synchronized List<String> getTeardownOrder(String moduleId) {
+        List<String> order = new ArrayList<>(sortByLevel(getTransitiveDependents(moduleId)));
+        Collections.reverse(order);
+        order.add(moduleId);
+        return order;
+    }
+
+    /**
+     * Sort modules by ascending dependency level, which is a valid load and enable order.
+     */
+    synchronized List<String> sortByLevel(Collection<String> moduleIds) {
+        Map<String, Integer> computed = levels();
+        return moduleIds.stream()
+                .filter(computed::containsKey)
+                .sorted((a, b) -> {
+                    int byLevel = Integer.compare(computed.get(a), computed.get(b));
+                    return byLevel != 0 ? byLevel : a.compareTo(b);
+                })
+                .toList();
+    }
+
+    /**
+     * Group the loaded modules by dependency level. Modules of level 0 have no loaded dependency,
+     * and every module only depends on modules of a lower level.
+     */
+    synchronized List<List<String>> getLevels() {
+        Map<Integer, List<String>> waves = new TreeMap<>();
+        new TreeMap<>(levels()).forEach((moduleId, level) ->
+                waves.computeIfAbsent(level, k -> new ArrayList<>()).add(moduleId));
+        return new ArrayList<>(waves.values());
+    }
+
+    private Map<String, Integer> levels() {
+        if (this.levels == null) {
+            Map<String, Integer> computed = new HashMap<>();
+            for (String moduleId : this.dependencies.keySet()) {
+                computeLevel(moduleId, computed, new HashSet<>());
+            }
+            this.levels = computed;
+        }
+        return this.levels;
+    }
+
+    private int computeLevel(String moduleId, Map<String, Integer> computed, Set<String> visiting) {
+        Integer known = computed.get(moduleId);
+        if (known != null) {
+            return known;
+        }
+
+        if (!visiting.add(moduleId)) {
+            throw new ModuleException("Circular dependency detected involving module: " + moduleId);
+        }
+
+        int level = 0;
+        for (String dependencyId : this.dependencies.get(moduleId)) {
+            if (this.dependencies.containsKey(dependencyId)) {
+                level = Math.max(level, computeLevel(dependencyId, computed, visiting) + 1);
+            }
+        }
+
+        visiting.remove(moduleId);
+        computed.put(moduleId, level);
+        return level;
+    }
+}
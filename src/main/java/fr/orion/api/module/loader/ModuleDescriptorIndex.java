@@ -0,0 +1,275 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.module.ModuleDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk cache of parsed module descriptors, so that unchanged module JARs do not have to be
+ * opened again on restart.
+ * <p>
+ * Entries are keyed by the JAR path and validated against the file size and modification time.
+ * When only the modification time changed, the content hash decides whether the entry is still valid.
+ * The computed load order is stored alongside, keyed by a fingerprint of the module ids and dependencies.
+ */
+public class ModuleDescriptorIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleDescriptorIndex.class);
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile String loadOrderFingerprint;
+    private volatile List<String> loadOrder;
+    private volatile boolean dirty;
+
+    public ModuleDescriptorIndex(Path indexFile) {
+        this.indexFile = indexFile;
+        load();
+    }
+
+    /**
+     * Get the cached entry for a JAR if it is still valid.
+     * @param jarPath The module JAR
+     * @return The cached entry, or null if the JAR is unknown or has changed
+     */
+    public Entry lookup(Path jarPath) {
+        Entry entry = this.entries.get(key(jarPath));
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            long size = Files.size(jarPath);
+            long lastModified = Files.getLastModifiedTime(jarPath).toMillis();
+
+            if (entry.size() != size) {
+                return null;
+            }
+            if (entry.lastModified() == lastModified) {
+                return entry;
+            }
+
+            String hash = hash(jarPath);
+            if (!hash.equals(entry.hash())) {
+                return null;
+            }
+
+            Entry refreshed = new Entry(size, lastModified, hash, entry.descriptor());
+            this.entries.put(key(jarPath), refreshed);
+            this.dirty = true;
+            return refreshed;
+        } catch (IOException e) {
+            logger.debug("Failed to validate index entry for {}", jarPath.getFileName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Record the descriptor freshly read from a JAR.
+     * @param jarPath The module JAR
+     * @param descriptor The parsed descriptor, or null if the JAR has no module.yml
+     */
+    public void record(Path jarPath, ModuleDescriptor descriptor) {
+        try {
+            Entry entry = new Entry(
+                    Files.size(jarPath),
+                    Files.getLastModifiedTime(jarPath).toMillis(),
+                    hash(jarPath),
+                    descriptor
+            );
+            this.entries.put(key(jarPath), entry);
+            this.dirty = true;
+        } catch (IOException e) {
+            logger.warn("Failed to index module JAR {}", jarPath.getFileName(), e);
+        }
+    }
+
+    /**
+     * Drop the entries of JARs which are not part of the given set anymore.
+     * @param jarPaths The JARs currently present in the modules directory
+     */
+    public void retainOnly(Collection<Path> jarPaths) {
+        Set<String> keys = jarPaths.stream()
+                .map(ModuleDescriptorIndex::key)
+                .collect(Collectors.toSet());
+
+        if (this.entries.keySet().retainAll(keys)) {
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Get the cached load order if the descriptors did not change since it was computed.
+     * @param descriptors The descriptors about to be loaded
+     * @return The cached load order, or null if it must be recomputed
+     */
+    public List<String> getLoadOrder(Map<String, ModuleDescriptor> descriptors) {
+        List<String> cached = this.loadOrder;
+        if (cached != null && fingerprint(descriptors).equals(this.loadOrderFingerprint)) {
+            return cached;
+        }
+        return null;
+    }
+
+    /**
+     * Store the load order computed for the given descriptors.
+     * @param descriptors The descriptors the order was computed from
+     * @param loadOrder The computed load order
+     */
+    public void setLoadOrder(Map<String, ModuleDescriptor> descriptors, List<String> loadOrder) {
+        this.loadOrderFingerprint = fingerprint(descriptors);
+        this.loadOrder = List.copyOf(loadOrder);
+        this.dirty = true;
+    }
+
+    /**
+     * Write the index to disk if it changed since it was loaded.
+     */
+    public synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+
+        Map<String, Object> jars = new LinkedHashMap<>();
+        this.entries.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> jars.put(e.getKey(), e.getValue().toMap()));
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("version", FORMAT_VERSION);
+        data.put("jars", jars);
+        if (this.loadOrder != null) {
+            data.put("loadOrderFingerprint", this.loadOrderFingerprint);
+            data.put("loadOrder", new ArrayList<>(this.loadOrder));
+        }
+
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        try {
+            Path parent = this.indexFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, "module-index", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                new Yaml(options).dump(data, writer);
+            }
+            Files.move(temp, this.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.dirty = false;
+        } catch (IOException e) {
+            logger.error("Failed to save module descriptor index: {}", this.indexFile, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void load() {
+        if (!Files.exists(this.indexFile)) {
+            return;
+        }
+
+        try (InputStream is = Files.newInputStream(this.indexFile)) {
+            Map<String, Object> data = new Yaml().load(is);
+            if (data == null || !Integer.valueOf(FORMAT_VERSION).equals(data.get("version"))) {
+                logger.info("Ignoring outdated module descriptor index: {}", this.indexFile);
+                return;
+            }
+
+            Map<String, Object> jars = (Map<String, Object>) data.getOrDefault("jars", Map.of());
+            for (Map.Entry<String, Object> jar : jars.entrySet()) {
+                this.entries.put(jar.getKey(), Entry.fromMap((Map<String, Object>) jar.getValue()));
+            }
+
+            if (data.get("loadOrder") instanceof List<?> order) {
+                this.loadOrder = order.stream().map(Object::toString).toList();
+                this.loadOrderFingerprint = String.valueOf(data.get("loadOrderFingerprint"));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read module descriptor index, it will be rebuilt: {}", this.indexFile, e);
+            this.entries.clear();
+            this.loadOrder = null;
+            this.loadOrderFingerprint = null;
+        }
+    }
+
+    private static String key(Path jarPath) {
+        return jarPath.toAbsolutePath().normalize().toString();
+    }
+
+    private static String fingerprint(Map<String, ModuleDescriptor> descriptors) {
+        StringBuilder builder = new StringBuilder();
+        for (ModuleDescriptor descriptor : descriptors.values()) {
+            builder.append(descriptor.id()).append(':');
+            descriptor.dependencies().stream().sorted().forEach(dependency -> builder.append(dependency).append(','));
+            builder.append('\n');
+        }
+        return HexFormat.of().formatHex(sha256().digest(builder.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String hash(Path jarPath) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+
+        try (InputStream is = Files.newInputStream(jarPath)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A cached descriptor and the file attributes it was read from.
+     * @param descriptor The cached descriptor, or null if the JAR has no module.yml
+     */
+    public record Entry(long size, long lastModified, String hash, ModuleDescriptor descriptor) {
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("size", this.size);
+            map.put("lastModified", this.lastModified);
+            map.put("hash", this.hash);
+            map.put("descriptor", this.descriptor != null ? new LinkedHashMap<>(this.descriptor.rawData()) : null);
+            return map;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Entry fromMap(Map<String, Object> map) {
+            Object descriptor = map.get("descriptor");
+            return new Entry(
+                    ((Number) map.get("size")).longValue(),
+                    ((Number) map.get("lastModified")).longValue(),
+                    (String) map.get("hash"),
+                    descriptor instanceof Map ? ModuleDescriptor.fromMap((Map<String, Object>) descriptor) : null
+            );
+        }
+    }
+}
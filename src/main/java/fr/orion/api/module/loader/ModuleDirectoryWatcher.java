@@ -0,0 +1,167 @@
+package fr.orion.api.module.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the modules directory and deploys, redeploys or undeploys modules when their JAR
+ * is added, replaced or removed.
+ * <p>
+ * Changes are debounced: a JAR is only handled once no event was received for it during the
+ * debounce period and its size stopped changing, so partially copied files are never loaded.
+ * All changes are applied from the single watcher thread, one JAR at a time.
+ */
+public class ModuleDirectoryWatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleDirectoryWatcher.class);
+
+    private final DefaultModuleLoader loader;
+    private final Path directory;
+    private final Duration debounce;
+    private final Map<Path, PendingChange> pendingChanges = new LinkedHashMap<>();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public ModuleDirectoryWatcher(DefaultModuleLoader loader, Path directory, Duration debounce) {
+        this.loader = loader;
+        this.directory = directory;
+        this.debounce = debounce;
+    }
+
+    /**
+     * Start watching the directory.
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (this.running) {
+            return;
+        }
+
+        this.watchService = this.directory.getFileSystem().newWatchService();
+        this.directory.register(this.watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        this.running = true;
+        this.thread = new Thread(this::run, "orion-module-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("Watching modules directory: {}", this.directory);
+    }
+
+    private void run() {
+        long pollInterval = Math.max(50, this.debounce.toMillis() / 2);
+
+        while (this.running) {
+            try {
+                WatchKey key = this.watchService.poll(pollInterval, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        handleEvent(event);
+                    }
+                    key.reset();
+                }
+                processDueChanges();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                logger.error("Error while processing module directory changes", e);
+            }
+        }
+    }
+
+    private void handleEvent(WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            logger.warn("Module directory events were lost, some changes may need a manual reload");
+            return;
+        }
+
+        Path file = this.directory.resolve((Path) event.context());
+        if (!file.toString().toLowerCase().endsWith(".jar")) {
+            return;
+        }
+
+        this.pendingChanges.put(file, new PendingChange(System.nanoTime(), sizeOf(file)));
+    }
+
+    private void processDueChanges() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingChange>> iterator = this.pendingChanges.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingChange> entry = iterator.next();
+            Path file = entry.getKey();
+            PendingChange change = entry.getValue();
+
+            if (now - change.lastEvent() < this.debounce.toNanos()) {
+                continue;
+            }
+
+            long size = sizeOf(file);
+            if (size != change.size()) {
+                entry.setValue(new PendingChange(now, size));
+                continue;
+            }
+
+            iterator.remove();
+
+            if (size >= 0) {
+                logger.info("Module JAR changed: {}", file.getFileName());
+                this.loader.deployModule(file);
+            } else {
+                logger.info("Module JAR removed: {}", file.getFileName());
+                this.loader.undeployModule(file);
+            }
+        }
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!this.running) {
+            return;
+        }
+
+        this.running = false;
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            logger.error("Failed to close module directory watcher", e);
+        }
+
+        this.thread.interrupt();
+        if (Thread.currentThread() != this.thread) {
+            try {
+                this.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Stopped watching modules directory: {}", this.directory);
+    }
+
+    private record PendingChange(long lastEvent, long size) {}
+}
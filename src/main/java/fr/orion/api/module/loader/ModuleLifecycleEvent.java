@@ -0,0 +1,25 @@
+package fr.orion.api.module.loader;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event emitted for each timed module lifecycle phase.
+ */
+@Name("fr.orion.ModuleLifecycle")
+@Label("Module Lifecycle Phase")
+@Category({"Orion", "Modules"})
+@Description("A lifecycle phase of an Orion module")
+class ModuleLifecycleEvent extends Event {
+    @Label("Module")
+    String moduleId;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,85 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.module.ModulePhase;
+import fr.orion.api.module.ModuleTimings;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Records the duration of module lifecycle phases, and emits them as JFR events.
+ */
+class ModuleTimingRecorder {
+    private final Map<String, Map<ModulePhase, Duration>> timings = new ConcurrentHashMap<>();
+
+    /**
+     * Start timing a phase. The returned span must be ended once the phase completed.
+     */
+    Span start(String moduleId, ModulePhase phase) {
+        ModuleLifecycleEvent event = new ModuleLifecycleEvent();
+        event.begin();
+        return new Span(moduleId, phase, System.nanoTime(), event);
+    }
+
+    ModuleTimings get(String moduleId) {
+        Map<ModulePhase, Duration> phases = this.timings.get(moduleId);
+        if (phases == null) {
+            return null;
+        }
+        synchronized (phases) {
+            return new ModuleTimings(moduleId, phases);
+        }
+    }
+
+    Collection<ModuleTimings> getAll() {
+        return this.timings.keySet().stream()
+                .sorted()
+                .map(this::get)
+                .collect(Collectors.toList());
+    }
+
+    private void record(String moduleId, ModulePhase phase, Duration duration) {
+        Map<ModulePhase, Duration> phases = this.timings.computeIfAbsent(moduleId, k -> new EnumMap<>(ModulePhase.class));
+        synchronized (phases) {
+            phases.put(phase, duration);
+        }
+    }
+
+    final class Span {
+        private final String moduleId;
+        private final ModulePhase phase;
+        private final long start;
+        private final ModuleLifecycleEvent event;
+
+        private Span(String moduleId, ModulePhase phase, long start, ModuleLifecycleEvent event) {
+            this.moduleId = moduleId;
+            this.phase = phase;
+            this.start = start;
+            this.event = event;
+        }
+
+        /**
+         * End the span, attributing it to another module id. Used when the id is only known
+         * at the end of the phase, as for descriptor reads.
+         */
+        void end(String moduleId, boolean success) {
+            record(moduleId, this.phase, Duration.ofNanos(System.nanoTime() - this.start));
+
+            this.event.end();
+            if (this.event.shouldCommit()) {
+                this.event.moduleId = moduleId;
+                this.event.phase = this.phase.name();
+                this.event.success = success;
+                this.event.commit();
+            }
+        }
+
+        void end(boolean success) {
+            end(this.moduleId, success);
+        }
+    }
+}
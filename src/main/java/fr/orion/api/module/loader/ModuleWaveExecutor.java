@@ -0,0 +1,192 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.utils.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs a lifecycle action on a wave of independent modules concurrently, giving each module its own deadline.
+ * <p>
+ * The deadline of a module starts when the wave is submitted, so waiting for a worker counts against it and
+ * a wave never takes longer than the timeout, whatever the parallelism. A module which did not start before
+ * its deadline is reported as {@link Outcome#TIMED_OUT} and never runs. A module whose action overruns is
+ * reported as {@link Outcome#TIMED_OUT} too, its thread is interrupted and abandoned, and a new thread takes
+ * over the rest of the wave, so an action ignoring interrupts cannot hold the modules queued behind it.
+ * The caller is handed the completion of every abandoned action, so that it can wait for it or undo its effect.
+ */
+class ModuleWaveExecutor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleWaveExecutor.class);
+    private static final long GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    private static final int EXPIRED = 3;
+
+    private final String phase;
+    private final int parallelism;
+    private final Duration timeout;
+    private final ThreadFactory threadFactory;
+    private final ScheduledExecutorService watchdog;
+
+    ModuleWaveExecutor(String phase, int parallelism, Duration timeout) {
+        this.phase = phase;
+        this.parallelism = parallelism;
+        this.timeout = timeout;
+        this.threadFactory = new NamedThreadFactory("orion-module-" + phase, true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("orion-module-" + phase + "-watchdog", true));
+    }
+
+    /**
+     * Run the action on every module of the wave and wait for all of them to complete or time out.
+     * @param moduleIds The modules of the wave, none of them depending on another
+     * @param action The action to run, returning true on success
+     * @param onAbandoned Called with the module id and the completion of each action which overran its deadline,
+     *                    completed with the result of the action once its thread returns
+     * @return The outcome of each module, in wave order
+     */
+    Map<String, Outcome> runWave(Collection<String> moduleIds, Predicate<String> action,
+                                 BiConsumer<String, CompletableFuture<Boolean>> onAbandoned) {
+        Queue<Task> queue = new ConcurrentLinkedQueue<>();
+        List<Task> tasks = new ArrayList<>(moduleIds.size());
+        for (String moduleId : moduleIds) {
+            Task task = new Task(moduleId);
+            task.deadline = this.watchdog.schedule(() -> expire(task, queue, action, onAbandoned), this.timeout.toMillis(), TimeUnit.MILLISECONDS);
+            tasks.add(task);
+        }
+        queue.addAll(tasks);
+
+        for (int i = Math.min(this.parallelism, tasks.size()); i > 0; i--) {
+            startWorker(queue, action);
+        }
+
+        long waitUntil = System.nanoTime() + this.timeout.toNanos() + GRACE_NANOS;
+        Map<String, Outcome> outcomes = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            outcomes.put(task.moduleId, await(task, waitUntil, queue, action, onAbandoned));
+        }
+        return outcomes;
+    }
+
+    private Outcome await(Task task, long waitUntil, Queue<Task> queue, Predicate<String> action,
+                          BiConsumer<String, CompletableFuture<Boolean>> onAbandoned) {
+        try {
+            return task.result.get(Math.max(0, waitUntil - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            logger.warn("Watchdog did not report module {} in time", task.moduleId);
+        } catch (ExecutionException e) {
+            return Outcome.FAILED;
+        }
+        // The watchdog is late, expire the module from here so that it never runs after the wave
+        expire(task, queue, action, onAbandoned);
+        return task.result.getNow(Outcome.TIMED_OUT);
+    }
+
+    private void startWorker(Queue<Task> queue, Predicate<String> action) {
+        this.threadFactory.newThread(() -> work(queue, action)).start();
+    }
+
+    private void work(Queue<Task> queue, Predicate<String> action) {
+        Task task;
+        while ((task = queue.poll()) != null) {
+            task.thread = Thread.currentThread();
+            if (!task.state.compareAndSet(QUEUED, RUNNING)) {
+                continue;
+            }
+
+            Outcome outcome;
+            try {
+                outcome = action.test(task.moduleId) ? Outcome.SUCCESS : Outcome.FAILED;
+            } catch (Throwable t) {
+                logger.error("Unexpected error during {} of module {}", this.phase, task.moduleId, t);
+                outcome = Outcome.FAILED;
+            }
+
+            boolean inTime;
+            synchronized (task) {
+                inTime = task.state.compareAndSet(RUNNING, DONE);
+                // Any interrupt of this module is delivered by now, it must not leak into the next one
+                Thread.interrupted();
+            }
+            task.completion.complete(outcome == Outcome.SUCCESS);
+            if (!inTime) {
+                // A replacement thread already took over the rest of the wave
+                logger.warn("Module {} completed {} after its deadline", task.moduleId, this.phase);
+                return;
+            }
+            task.deadline.cancel(false);
+            task.result.complete(outcome);
+        }
+    }
+
+    private void expire(Task task, Queue<Task> queue, Predicate<String> action,
+                        BiConsumer<String, CompletableFuture<Boolean>> onAbandoned) {
+        if (task.state.compareAndSet(QUEUED, EXPIRED)) {
+            logger.error("Module {} did not start {} within {} ms", task.moduleId, this.phase, this.timeout.toMillis());
+            task.result.complete(Outcome.TIMED_OUT);
+            return;
+        }
+
+        synchronized (task) {
+            if (!task.state.compareAndSet(RUNNING, EXPIRED)) {
+                return;
+            }
+            logger.error("Module {} did not complete {} within {} ms", task.moduleId, this.phase, this.timeout.toMillis());
+            task.thread.interrupt();
+        }
+        onAbandoned.accept(task.moduleId, task.completion);
+        task.result.complete(Outcome.TIMED_OUT);
+        if (!queue.isEmpty()) {
+            startWorker(queue, action);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.watchdog.shutdownNow();
+    }
+
+    enum Outcome {
+        SUCCESS,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * A module of a wave, moving from queued to running to done, or to expired once its deadline passed.
+     */
+    private static final class Task {
+        private final String moduleId;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CompletableFuture<Outcome> result = new CompletableFuture<>();
+        private final CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> deadline;
+        private volatile Thread thread;
+
+        private Task(String moduleId) {
+            this.moduleId = moduleId;
+        }
+    }
+}
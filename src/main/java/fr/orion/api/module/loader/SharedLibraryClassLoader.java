@@ -0,0 +1,158 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.module.loader.exception.ModuleException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Common parent of every module ClassLoader, holding the libraries declared by modules.
+ * <p>
+ * Each library is added once, whatever the number of modules declaring it, and libraries are deduplicated
+ * by content hash so that the same JAR shipped under different names is only loaded once. Modules declaring
+ * a library therefore share its classes, and only their own classes stay in their module ClassLoader.
+ * Libraries stay loaded for the lifetime of the loader.
+ * <p>
+ * A library is declared either as a path relative to the modules directory, or as Maven coordinates
+ * ({@code group:artifact:version}) resolved against the {@code libraries} directory laid out like a
+ * Maven repository. Only one version of an artifact is loaded: a module requesting another version than the one
+ * already loaded gets the loaded one, and the conflict is logged.
+ */
+class SharedLibraryClassLoader extends URLClassLoader {
+    private static final Logger logger = LoggerFactory.getLogger(SharedLibraryClassLoader.class);
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Path modulesDirectory;
+    private final Map<String, Path> librariesByHash = new ConcurrentHashMap<>();
+    private final Map<String, String> versionsByArtifact = new ConcurrentHashMap<>();
+    private final Map<Path, Digest> digestsByPath = new ConcurrentHashMap<>();
+
+    SharedLibraryClassLoader(Path modulesDirectory, ClassLoader parent) {
+        super(new URL[0], parent);
+        this.modulesDirectory = modulesDirectory;
+    }
+
+    /**
+     * Make a library declared by a module available to every module.
+     * @param moduleId The module declaring the library
+     * @param library The library path or coordinates
+     * @throws ModuleException if the library cannot be found or read
+     */
+    synchronized void addLibrary(String moduleId, String library) throws ModuleException {
+        String[] coordinates = coordinates(library);
+        if (coordinates != null) {
+            String loadedVersion = this.versionsByArtifact.get(coordinates[0] + ":" + coordinates[1]);
+            if (loadedVersion != null && !loadedVersion.equals(coordinates[2])) {
+                logger.warn("Skipping library {} of module {}: version {} is already loaded and is used instead",
+                        library, moduleId, loadedVersion);
+                return;
+            }
+        }
+
+        Path jarPath = resolve(library, coordinates);
+        if (!Files.isRegularFile(jarPath)) {
+            throw new ModuleException("Library " + library + " declared by module " + moduleId + " not found: " + jarPath);
+        }
+
+        String hash;
+        try {
+            hash = hash(jarPath);
+        } catch (IOException e) {
+            throw new ModuleException("Failed to read library " + library + " declared by module " + moduleId, e);
+        }
+
+        Path existing = this.librariesByHash.putIfAbsent(hash, jarPath);
+        if (existing != null) {
+            logger.debug("Library {} of module {} is already loaded from {}", library, moduleId, existing.getFileName());
+        } else {
+            try {
+                addURL(jarPath.toUri().toURL());
+            } catch (MalformedURLException e) {
+                this.librariesByHash.remove(hash);
+                throw new ModuleException("Invalid library path: " + jarPath, e);
+            }
+            logger.info("Loaded shared library {} for module {}", jarPath.getFileName(), moduleId);
+        }
+
+        if (coordinates != null) {
+            this.versionsByArtifact.putIfAbsent(coordinates[0] + ":" + coordinates[1], coordinates[2]);
+        }
+    }
+
+    /**
+     * @return The group, artifact and version of a library declared by coordinates, or null for a path
+     */
+    private static String[] coordinates(String library) {
+        String[] coordinates = library.split(":");
+        return coordinates.length != 3 || library.endsWith(".jar") ? null : coordinates;
+    }
+
+    private Path resolve(String library, String[] coordinates) {
+        if (coordinates == null) {
+            return this.modulesDirectory.resolve(library).normalize();
+        }
+
+        String group = coordinates[0];
+        String artifact = coordinates[1];
+        String version = coordinates[2];
+
+        return this.modulesDirectory
+                .resolve("libraries")
+                .resolve(group.replace('.', '/'))
+                .resolve(artifact)
+                .resolve(version)
+                .resolve(artifact + "-" + version + ".jar");
+    }
+
+    /**
+     * Hash a library, reusing the previous hash of the file while its size and modification time are unchanged.
+     */
+    private String hash(Path jarPath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jarPath, BasicFileAttributes.class);
+        Digest cached = this.digestsByPath.get(jarPath);
+        if (cached != null && cached.size() == attributes.size() && cached.lastModified().equals(attributes.lastModifiedTime())) {
+            return cached.hash();
+        }
+
+        String hash = computeHash(jarPath);
+        this.digestsByPath.put(jarPath, new Digest(attributes.size(), attributes.lastModifiedTime(), hash));
+        return hash;
+    }
+
+    private static String computeHash(Path jarPath) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream is = Files.newInputStream(jarPath)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private record Digest(long size, FileTime lastModified, String hash) {}
+}
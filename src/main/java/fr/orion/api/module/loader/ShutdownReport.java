@@ -0,0 +1,26 @@
+package fr.orion.api.module.loader;
+
+import java.util.List;
+
+/**
+ * Outcome of disabling every module during shutdown.
+ *
+ * @param disabled The modules disabled within their deadline
+ * @param failed   The modules whose disable failed
+ * @param timedOut The modules which overran their disable deadline
+ */
+public record ShutdownReport(List<String> disabled, List<String> failed, List<String> timedOut) {
+    public ShutdownReport {
+        disabled = List.copyOf(disabled);
+        failed = List.copyOf(failed);
+        timedOut = List.copyOf(timedOut);
+    }
+
+    /**
+     * Check if every module was disabled within its deadline.
+     * @return true if no module failed or overran
+     */
+    public boolean isClean() {
+        return this.failed.isEmpty() && this.timedOut.isEmpty();
+    }
+}
@@ -0,0 +1,56 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.interactions.commands.Command.Choice;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AutocompleteIndexTest {
+
+    @Test
+    @DisplayName("Autocomplete index should match prefixes ignoring case")
+    public void testPrefixLookup() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.add("Apple");
+        index.add("apricot");
+        index.add("Banana");
+        index.add(new Choice("Apple", 2));
+
+        List<String> names = index.lookup("AP", 10).stream().map(Choice::getName).toList();
+        assertEquals(List.of("Apple", "Apple", "apricot"), names, "Homonyms with different values should both match");
+        assertTrue(index.lookup("c", 10).isEmpty(), "Unknown prefix should not match");
+        assertEquals(4, index.lookup("", 10).size(), "Empty prefix should match every candidate");
+    }
+
+    @Test
+    @DisplayName("Autocomplete index should update results incrementally")
+    public void testIncrementalUpdates() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        index.replaceAll(List.of(new Choice("alpha", "alpha"), new Choice("beta", "beta")));
+
+        assertEquals(1, index.lookup(1L, "a").size(), "Initial candidates should match");
+
+        index.replaceAll(List.of(new Choice("alpha", "alpha"), new Choice("alpine", "alpine")));
+        assertEquals(2, index.size(), "Missing candidates should be removed");
+        assertEquals(2, index.lookup(1L, "a").size(), "Cached result should be invalidated by a change");
+
+        index.remove(new Choice("alpine", "alpine"));
+        assertEquals(List.of("alpha"), index.lookup(1L, "al").stream().map(Choice::getName).toList(),
+                "Removed candidate should not be suggested");
+    }
+
+    @Test
+    @DisplayName("Autocomplete index should limit and narrow user results")
+    public void testUserLookup() {
+        AutocompleteIndex index = new AutocompleteIndex();
+        IntStream.range(0, 100).forEach(i -> index.add("item" + i));
+
+        assertEquals(AutocompleteIndex.MAX_CHOICES, index.lookup(1L, "item").size(), "Results should be limited");
+        assertEquals(11, index.lookup(1L, "item1").size(), "Truncated result should be looked up again");
+        assertEquals(1, index.lookup(1L, "item12").size(), "Complete result should be narrowed");
+    }
+}
@@ -0,0 +1,141 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import net.dv8tion.jda.api.interactions.commands.build.SubcommandData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CommandRouterTest {
+
+    @Test
+    @DisplayName("Subcommands should be routed to their handler")
+    public void testSubcommandRoute() {
+        ShopCommand shop = new ShopCommand();
+        CommandRouter router = CommandRouter.compile(List.of(shop, new PingCommand()));
+
+        CommandRouter.Route route = router.resolve("shop", null, "buy");
+
+        assertNotNull(route, "Subcommand should be routed");
+        assertSame(shop, route.command(), "Route should keep its command");
+        assertSame(shop.buy, route.handler(), "Route should target the subcommand handler");
+        assertEquals(3, router.size(), "Each command and subcommand should have a route");
+    }
+
+    @Test
+    @DisplayName("Paths without a dedicated route should fall back to their command")
+    public void testFallbackRoute() {
+        PingCommand ping = new PingCommand();
+        CommandRouter router = CommandRouter.compile(List.of(new ShopCommand(), ping));
+
+        assertSame(ping, router.resolve("ping", null, null).command(), "Plain commands should be routed");
+        assertNull(router.resolve("ping", null, null).handler(), "Plain commands handle the invocation themselves");
+        assertNull(router.resolve("shop", null, "sell").handler(), "Unknown subcommands fall back to the parent command");
+        assertNull(router.resolve("unknown", null, null), "Unknown commands should not be routed");
+        assertNull(CommandRouter.EMPTY.resolve("ping", null, null), "Empty router should not route anything");
+    }
+
+    @Test
+    @DisplayName("Subcommands of a command overriding execute should go through the command")
+    public void testInterceptedSubcommand() {
+        GuardedShopCommand shop = new GuardedShopCommand();
+        CommandRouter.Route route = CommandRouter.compile(List.of(shop)).resolve("shop", null, "buy");
+
+        assertTrue(route.intercepted(), "Overridden dispatch should be detected");
+        SlashCommandInteractionEvent event = mock(SlashCommandInteractionEvent.class);
+        when(event.getSubcommandName()).thenReturn("buy");
+        route.execute(event);
+        assertTrue(shop.checked, "Overridden execute should run before the subcommand");
+        assertFalse(CommandRouter.compile(List.of(new ShopCommand())).resolve("shop", null, "buy").intercepted(),
+                "Default dispatch should route to the handler directly");
+    }
+
+    @Test
+    @DisplayName("Errors of a deferred invocation should be sent through the interaction hook")
+    public void testErrorAfterDeferral() {
+        CommandRouter.Route route = new CommandRouter.Route("shop", null, "fail", "shop fail", new ShopCommand(), new FailingHandler());
+        SlashCommandInteractionEvent event = mock(SlashCommandInteractionEvent.class, RETURNS_DEEP_STUBS);
+        when(event.isAcknowledged()).thenReturn(true);
+
+        assertFalse(route.execute(event), "Failed handler should be reported");
+        verify(event.getHook()).sendMessage("An error occurred while executing this command: failed");
+        verify(event, never()).reply(anyString());
+    }
+
+    private static class GuardedShopCommand extends ShopCommand {
+        private boolean checked;
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+            this.checked = true;
+            super.execute(event);
+        }
+    }
+
+    private static class FailingHandler implements ParentCommand.SubcommandHandler {
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+            throw new IllegalStateException("failed");
+        }
+
+        @Override
+        public SubcommandData getSubcommandData() {
+            return new SubcommandData("fail", "Fail");
+        }
+    }
+
+    private static class PingCommand implements Command {
+        @Override
+        public String getName() {
+            return "ping";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Ping";
+        }
+
+        @Override
+        public SlashCommandData buildCommandData() {
+            return Commands.slash(getName(), getDescription());
+        }
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+        }
+    }
+
+    private static class ShopCommand extends ParentCommand {
+        private final SubcommandHandler buy = new SubcommandHandler() {
+            @Override
+            public void execute(SlashCommandInteractionEvent event) {
+            }
+
+            @Override
+            public SubcommandData getSubcommandData() {
+                return new SubcommandData("buy", "Buy");
+            }
+        };
+
+        ShopCommand() {
+            registerSubcommand("buy", "Buy", this.buy);
+        }
+
+        @Override
+        public String getName() {
+            return "shop";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Shop";
+        }
+    }
+}
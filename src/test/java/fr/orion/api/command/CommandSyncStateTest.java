@@ -0,0 +1,38 @@
+package fr.orion.api.command;
+
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandSyncStateTest {
+
+    @Test
+    @DisplayName("Command hash should only depend on the command content")
+    public void testCommandHash() {
+        String hash = CommandSyncState.hash(Commands.slash("ping", "Ping the bot"));
+
+        assertEquals(hash, CommandSyncState.hash(Commands.slash("ping", "Ping the bot")), "Same command should have the same hash");
+        assertNotEquals(hash, CommandSyncState.hash(Commands.slash("ping", "Ping")), "Changed description should change the hash");
+    }
+
+    @Test
+    @DisplayName("Synchronization state should survive a restart")
+    public void testStatePersistence(@TempDir Path directory) {
+        Path file = directory.resolve("commands.yml");
+        CommandSyncState state = new CommandSyncState(file);
+        assertTrue(state.isUnknown("global"), "Scope should be unknown before the first synchronization");
+
+        state.put("global", Map.of("ping", new CommandSyncState.Entry("abc", "123")));
+        state.save();
+
+        CommandSyncState reloaded = new CommandSyncState(file);
+        assertFalse(reloaded.isUnknown("global"), "Synchronized scope should be known after a restart");
+        assertEquals(new CommandSyncState.Entry("abc", "123"), reloaded.get("global").get("ping"), "Entry should be restored");
+    }
+}
@@ -0,0 +1,33 @@
+package fr.orion.api.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Histogram percentiles should stay within the bucket precision")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        assertEquals(1000, histogram.count(), "Every value should be counted");
+        assertEquals(1_000_000, histogram.max(), "Maximum should be exact");
+        assertEquals(500_000, histogram.percentile(50), 500_000 * 0.125, "Median should be within 12.5%");
+        assertEquals(990_000, histogram.percentile(99), 990_000 * 0.125, "p99 should be within 12.5%");
+        assertTrue(histogram.percentile(99) <= histogram.max(), "Percentiles should not exceed the maximum");
+    }
+
+    @Test
+    @DisplayName("Empty histogram should report zero")
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.count(), "Empty histogram should have no value");
+        assertEquals(0, histogram.percentile(50), "Empty histogram percentile should be zero");
+    }
+}
@@ -0,0 +1,44 @@
+package fr.orion.api.command;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName("Rate limiter should allow a burst then refill over the period")
+    public void testBurstAndRefill() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(new RateLimit(2, Duration.ofSeconds(10), RateLimit.Scope.USER), clock::get);
+
+        assertEquals(0, limiter.tryAcquire(1L), "First invocation should be allowed");
+        assertEquals(0, limiter.tryAcquire(1L), "Burst should be allowed");
+        assertEquals(TimeUnit.SECONDS.toNanos(5), limiter.tryAcquire(1L), "Third invocation should wait for one permit");
+        assertEquals(0, limiter.tryAcquire(2L), "Other keys should have their own permits");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, limiter.tryAcquire(1L), "Permit should be refilled after its share of the period");
+    }
+
+    @Test
+    @DisplayName("Rate limiter should evict refilled buckets")
+    public void testEviction() {
+        AtomicLong clock = new AtomicLong();
+        RateLimiter limiter = new RateLimiter(RateLimit.cooldown(Duration.ofSeconds(1), RateLimit.Scope.USER), clock::get);
+
+        limiter.tryAcquire(1L);
+        limiter.tryAcquire(2L);
+        assertEquals(2, limiter.size(), "Active keys should have a bucket");
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.evictIdle();
+        assertEquals(0, limiter.size(), "Refilled buckets should be evicted");
+        assertEquals(0, limiter.tryAcquire(1L), "Evicted key should start with full permits");
+    }
+}
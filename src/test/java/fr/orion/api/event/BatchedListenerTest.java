@@ -0,0 +1,73 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.Event;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchedListenerTest {
+    private static final JDA JDA_STUB = (JDA) Proxy.newProxyInstance(JDA.class.getClassLoader(), new Class<?>[]{JDA.class},
+            (proxy, method, args) -> method.getReturnType() == long.class ? 0L : null);
+
+    @Test
+    @DisplayName("Batches should be delivered off the dispatching thread when full, and on close")
+    public void testBatchSize() throws InterruptedException {
+        List<List<String>> batches = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        BatchedListener<ValueEvent> listener = BatchedListener.of(ValueEvent.class, 2, Duration.ofMinutes(1), events -> {
+            batches.add(events.stream().map(event -> event.value).toList());
+            threads.add(Thread.currentThread());
+            delivered.countDown();
+        });
+
+        List.of("a", "b", "c").forEach(value -> listener.onEvent(new ValueEvent("user", value)));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "Full batch should be delivered");
+        assertEquals(List.of(List.of("a", "b")), batches, "Full batch should hold the batch size");
+        assertNotSame(Thread.currentThread(), threads.get(0), "Full batch should not be delivered on the dispatching thread");
+
+        listener.close();
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), batches, "Pending events should be delivered on close");
+        assertEquals(Set.of(ValueEvent.class), DefaultEventRegistry.getSubscribedTypes(listener), "Listener should subscribe to its event type");
+    }
+
+    @Test
+    @DisplayName("Coalesced batches should keep the latest event of each key after the delay")
+    public void testCoalescing() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(1);
+        List<String> values = new CopyOnWriteArrayList<>();
+        BatchedListener<ValueEvent> listener = BatchedListener.coalescing(ValueEvent.class, 10, Duration.ofMillis(20),
+                event -> event.key, events -> {
+                    events.forEach(event -> values.add(event.value));
+                    delivered.countDown();
+                });
+
+        listener.onEvent(new ValueEvent("alice", "online"));
+        listener.onEvent(new ValueEvent("bob", "idle"));
+        listener.onEvent(new ValueEvent("alice", "offline"));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "Batch should be delivered after the delay");
+        assertEquals(List.of("offline", "idle"), values, "Latest event of each key should be delivered once");
+    }
+
+    private static class ValueEvent extends Event {
+        private final String key;
+        private final String value;
+
+        private ValueEvent(String key, String value) {
+            super(JDA_STUB);
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
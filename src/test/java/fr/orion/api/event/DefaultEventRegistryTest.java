@@ -0,0 +1,129 @@
+package fr.orion.api.event;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.Event;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.api.events.session.ReadyEvent;
+import net.dv8tion.jda.api.hooks.EventListener;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultEventRegistryTest {
+    private static final JDA JDA_STUB = (JDA) Proxy.newProxyInstance(JDA.class.getClassLoader(), new Class<?>[]{JDA.class},
+            (proxy, method, args) -> method.getReturnType() == long.class ? 0L : null);
+
+    @Test
+    @DisplayName("Subscribed types should be the overridden adapter methods")
+    public void testSubscribedTypes() {
+        assertEquals(Set.of(ReadyEvent.class), DefaultEventRegistry.getSubscribedTypes(new ReadyListener(new ArrayList<>())),
+                "Adapter should subscribe to the events of its overridden methods");
+        assertEquals(Set.of(GenericEvent.class), DefaultEventRegistry.getSubscribedTypes(event -> {}),
+                "Plain listeners should subscribe to every event");
+    }
+
+    @Test
+    @DisplayName("Events should only reach the listeners subscribed to their type")
+    public void testTypedDispatch() {
+        List<String> received = new ArrayList<>();
+        DefaultEventRegistry registry = new DefaultEventRegistry();
+        registry.registerListener(new ReadyListener(received));
+        EventListener everything = event -> received.add("generic");
+        registry.registerListener(everything);
+
+        registry.onEvent(new CustomEvent());
+        assertEquals(List.of("generic"), received, "Custom events should not reach the ready listener");
+
+        received.clear();
+        registry.unregisterListener(everything);
+        registry.onEvent(new CustomEvent());
+        assertTrue(received.isEmpty(), "Unregistered listeners should not receive events");
+        assertEquals(1, registry.size(), "Only the ready listener should remain");
+    }
+
+    @Test
+    @DisplayName("Filtered listeners should only receive the events of their guilds")
+    public void testGuildFilter() {
+        List<String> received = new ArrayList<>();
+        DefaultEventRegistry registry = new DefaultEventRegistry();
+        registry.registerListener(event -> received.add("first"), EventFilter.guilds(1L));
+        registry.registerListener(event -> received.add("second"), EventFilter.guilds(2L, 3L));
+        registry.registerListener(event -> received.add("custom"), EventFilter.ANY.withEventTypes(CustomEvent.class));
+
+        registry.onEvent(new GuildAvailableEvent(JDA_STUB, 0, guild(3L)));
+        assertEquals(List.of("second"), received, "Only the listener of the guild should be invoked");
+
+        received.clear();
+        registry.onEvent(new CustomEvent());
+        assertEquals(List.of("custom"), received, "Events without guild should not match guild filters");
+        assertFalse(EventFilter.guilds(1L).test(new GuildAvailableEvent(JDA_STUB, 0, guild(4L))), "Other guilds should be rejected");
+    }
+
+    @Test
+    @DisplayName("Registries without filter support should wrap filtered listeners")
+    public void testDefaultFilter() {
+        List<String> received = new ArrayList<>();
+        List<EventListener> listeners = new ArrayList<>();
+        EventRegistry registry = new EventRegistry() {
+            @Override
+            public void registerListener(EventListener listener) {
+                listeners.add(listener);
+            }
+
+            @Override
+            public void unregisterListener(EventListener listener) {
+                listeners.remove(listener);
+            }
+
+            @Override
+            public void registerListeners(EventListener... listeners) {
+            }
+
+            @Override
+            public void unregisterListeners(EventListener... listeners) {
+            }
+        };
+        EventListener listener = event -> received.add("guild");
+        registry.registerListener(listener, EventFilter.guilds(1L));
+
+        listeners.forEach(registered -> registered.onEvent(new GuildAvailableEvent(JDA_STUB, 0, guild(2L))));
+        listeners.forEach(registered -> registered.onEvent(new GuildAvailableEvent(JDA_STUB, 0, guild(1L))));
+        assertEquals(List.of("guild"), received, "Only the events of the filtered guild should be delivered");
+
+        registry.unregisterListener(listener, EventFilter.guilds(1L));
+        assertTrue(listeners.isEmpty(), "Filtered listener should be unregistered");
+    }
+
+    private static Guild guild(long id) {
+        return (Guild) Proxy.newProxyInstance(Guild.class.getClassLoader(), new Class<?>[]{Guild.class},
+                (proxy, method, args) -> method.getName().equals("getIdLong") ? id : null);
+    }
+
+    private static class ReadyListener extends ListenerAdapter {
+        private final List<String> received;
+
+        private ReadyListener(List<String> received) {
+            this.received = received;
+        }
+
+        @Override
+        public void onReady(ReadyEvent event) {
+            this.received.add("ready");
+        }
+    }
+
+    private static class CustomEvent extends Event {
+        private CustomEvent() {
+            super(JDA_STUB);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package fr.orion.api.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventExecutorTest {
+
+    @Test
+    @DisplayName("Drop oldest policy should keep the most recent events")
+    public void testDropOldest() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        List<String> discarded = new CopyOnWriteArrayList<>();
+        EventExecutor executor = new EventExecutor("test", new EventExecutorConfig(2, 1, EventExecutorConfig.OverflowPolicy.DROP_OLDEST, false));
+
+        CountDownLatch release = blockWorker(executor);
+        for (String event : List.of("a", "b", "c")) {
+            executor.execute(event, () -> delivered.add(event), () -> discarded.add(event));
+        }
+        assertEquals(2, executor.getQueueDepth(), "Queue should be full");
+
+        release.countDown();
+        awaitExecuted(executor, 3);
+        assertEquals(List.of("b", "c"), delivered, "Most recent events should be delivered");
+        assertEquals(List.of("a"), discarded, "Oldest event should be discarded");
+        assertEquals(1, executor.getStats().dropped(), "Dropped event should be counted");
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Coalesce policy should replace the waiting event of the same key")
+    public void testCoalesce() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        EventExecutor executor = new EventExecutor("test", new EventExecutorConfig(2, 1, EventExecutorConfig.OverflowPolicy.COALESCE, false));
+
+        CountDownLatch release = blockWorker(executor);
+        executor.execute("presence", () -> delivered.add("presence-1"), () -> {});
+        executor.execute("message", () -> delivered.add("message-1"), () -> {});
+        executor.execute("presence", () -> delivered.add("presence-2"), () -> {});
+        executor.execute("voice", () -> delivered.add("voice-1"), () -> {});
+
+        release.countDown();
+        awaitExecuted(executor, 3);
+        assertEquals(List.of("presence-2", "message-1"), delivered, "Latest event should replace the waiting one");
+        EventExecutorStats stats = executor.getStats();
+        assertEquals(1, stats.coalesced(), "Replaced event should be counted");
+        assertEquals(1, stats.dropped(), "Event without waiting counterpart should be dropped");
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Coalesce policy should drop events without a key")
+    public void testCoalesceWithoutKey() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        EventExecutor executor = new EventExecutor("test", new EventExecutorConfig(1, 1, EventExecutorConfig.OverflowPolicy.COALESCE, false));
+
+        CountDownLatch release = blockWorker(executor);
+        executor.execute(null, () -> delivered.add("alice"), () -> {});
+        executor.execute(null, () -> delivered.add("bob"), () -> {});
+
+        release.countDown();
+        awaitExecuted(executor, 2);
+        assertEquals(List.of("alice"), delivered, "Event without a key should not replace another one");
+        assertEquals(1, executor.getStats().dropped(), "Event without a key should be dropped");
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Events arriving after shutdown should be discarded, not delivered on the dispatching thread")
+    public void testExecuteAfterShutdown() {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        List<String> discarded = new CopyOnWriteArrayList<>();
+        EventExecutor executor = new EventExecutor("test", new EventExecutorConfig(2, 1, EventExecutorConfig.OverflowPolicy.DROP_OLDEST, false));
+
+        executor.shutdown();
+        executor.execute("late", () -> delivered.add("late"), () -> discarded.add("late"));
+
+        assertEquals(List.of(), delivered, "Late event should not be delivered");
+        assertEquals(List.of("late"), discarded, "Late event should be discarded");
+    }
+
+    @Test
+    @DisplayName("A task throwing an error should not stall the queue")
+    public void testErrorInTask() throws InterruptedException {
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        EventExecutor executor = new EventExecutor("test", new EventExecutorConfig(4, 1, EventExecutorConfig.OverflowPolicy.DROP_OLDEST, false));
+
+        CountDownLatch release = blockWorker(executor);
+        executor.execute("failing", () -> {
+            throw new NoClassDefFoundError("fr/example/Unloaded");
+        }, () -> {});
+        executor.execute("next", () -> delivered.add("next"), () -> {});
+
+        release.countDown();
+        awaitExecuted(executor, 3);
+        executor.execute("later", () -> delivered.add("later"), () -> {});
+        awaitExecuted(executor, 4);
+        assertEquals(List.of("next", "later"), delivered, "Events after the error should be delivered");
+        executor.shutdown();
+    }
+
+    private static CountDownLatch blockWorker(EventExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("blocker", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, () -> {});
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Worker should start");
+        return release;
+    }
+
+    private static void awaitExecuted(EventExecutor executor, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getStats().executed() < count) {
+            assertTrue(System.nanoTime() < deadline, "Executor should drain");
+            Thread.sleep(5);
+        }
+    }
+}
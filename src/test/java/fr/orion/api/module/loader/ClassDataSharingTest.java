@@ -0,0 +1,41 @@
+package fr.orion.api.module.loader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassDataSharingTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("The archive should only be used once trained with the current module JARs")
+    public void testOptions() throws IOException {
+        Path archive = this.directory.resolve("orion.jsa");
+        Path modules = Files.createDirectories(this.directory.resolve("modules"));
+        ClassDataSharing cds = new ClassDataSharing(archive, modules);
+
+        assertEquals(List.of("-XX:ArchiveClassesAtExit=" + archive), cds.trainingOptions(), "Training should dump the archive at exit");
+        assertEquals(List.of(), cds.runOptions(), "Missing archive should not be used");
+
+        Files.writeString(archive, "previous dump");
+        assertEquals(0, cds.train(), "No module should be loaded");
+        assertFalse(Files.exists(archive), "Previous archive should be deleted");
+        assertTrue(Files.exists(this.directory.resolve("orion.jsa.fingerprint")), "Fingerprint should be written next to the archive");
+
+        // Written by the JVM at exit after a real training run
+        Files.writeString(archive, "dump");
+        assertEquals(List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto"), cds.runOptions(), "Trained archive should be used");
+
+        Files.writeString(modules.resolve("shop.jar"), "shop");
+        assertEquals(List.of(), cds.runOptions(), "Archive should need a new training run when a module JAR is added");
+    }
+}
@@ -0,0 +1,38 @@
+package fr.orion.api.module.loader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.Reference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassLoaderLeakDetectorTest {
+
+    @Test
+    @DisplayName("Only a ClassLoader still reachable after a major collection should be reported")
+    public void testLeak() throws InterruptedException {
+        URLClassLoader leaked = new URLClassLoader(new URL[0], null);
+
+        try (ClassLoaderLeakDetector detector = new ClassLoaderLeakDetector(null, Duration.ZERO)) {
+            detector.track("leaked", leaked);
+            detector.track("collected", new URLClassLoader(new URL[0], null));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (detector.getLeaks().isEmpty() && System.nanoTime() < deadline) {
+                System.gc();
+                Thread.sleep(100);
+            }
+
+            List<String> leaks = detector.getLeaks().stream().map(ClassLoaderLeakDetector.Leak::moduleId).toList();
+            assertEquals(List.of("leaked"), leaks, "Only the reachable ClassLoader should be reported");
+        } finally {
+            Reference.reachabilityFence(leaked);
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.Bot;
+import fr.orion.api.command.Command;
+import fr.orion.api.command.DefaultCommandRegistry;
+import fr.orion.api.module.AbstractModule;
+import fr.orion.api.module.ModuleDescriptor;
+import fr.orion.api.module.ModulePhase;
+import fr.orion.api.module.ModuleTimings;
+import fr.orion.api.module.loader.exception.ModuleException;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultModuleLoaderTest {
+    private static final Map<String, Runnable> ON_ENABLE = new ConcurrentHashMap<>();
+    private static final Map<String, Runnable> ON_DISABLE = new ConcurrentHashMap<>();
+    private static final Map<String, Runnable> ON_UNLOAD = new ConcurrentHashMap<>();
+    private static final Map<String, Command> COMMANDS = new ConcurrentHashMap<>();
+    private static final List<String> ENABLED = new CopyOnWriteArrayList<>();
+
+    @TempDir
+    Path modulesDirectory;
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        ON_ENABLE.clear();
+        ON_DISABLE.clear();
+        ON_UNLOAD.clear();
+        COMMANDS.clear();
+        ENABLED.clear();
+
+        // Modules create their data folder in the working directory
+        Path dataDirectory = Paths.get("modules-data");
+        for (String moduleId : List.of("core", "economy", "music", "slow", "shop", "broken", "hung", "other")) {
+            Files.deleteIfExists(dataDirectory.resolve(moduleId).resolve("config.yml"));
+            Files.deleteIfExists(dataDirectory.resolve(moduleId));
+        }
+        try (Stream<Path> remaining = Files.exists(dataDirectory) ? Files.list(dataDirectory) : Stream.empty()) {
+            if (remaining.findAny().isEmpty()) {
+                Files.deleteIfExists(dataDirectory);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Modules of a wave should be enabled concurrently, after their dependencies")
+    public void testWaveOrdering() throws IOException {
+        CountDownLatch musicStarted = new CountDownLatch(1);
+        ON_ENABLE.put("core", () -> await(musicStarted));
+        ON_ENABLE.put("music", musicStarted::countDown);
+
+        DefaultModuleLoader loader = createLoader(2, Duration.ofSeconds(5));
+        deploy("core");
+        deploy("economy", "core");
+        deploy("music");
+        loader.loadModules();
+
+        assertEquals(3, loader.enableModules(), "Every module should be enabled");
+        assertEquals("economy", ENABLED.get(2), "Dependent should be enabled after its wave");
+        assertEquals(Set.of("core", "economy", "music"), Set.copyOf(loader.disableAllModules().disabled()), "Every module should be disabled");
+    }
+
+    @Test
+    @DisplayName("Modules should be loaded after their dependencies")
+    public void testLoadOrder() {
+        Map<String, ModuleDescriptor> descriptors = new LinkedHashMap<>();
+        descriptors.put("shop", descriptor("shop", "economy", "core"));
+        descriptors.put("economy", descriptor("economy", "core", "missing"));
+        descriptors.put("music", descriptor("music"));
+        descriptors.put("core", descriptor("core"));
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        List<String> order = loader.calculateLoadOrder(descriptors);
+        assertEquals(4, order.size(), "Every module should be ordered once");
+        assertTrue(order.indexOf("core") < order.indexOf("economy"), "Core should be loaded before economy");
+        assertTrue(order.indexOf("economy") < order.indexOf("shop"), "Economy should be loaded before shop");
+
+        descriptors.put("core", descriptor("core", "shop"));
+        assertThrows(ModuleException.class, () -> loader.calculateLoadOrder(descriptors), "Cycle should be rejected");
+    }
+
+    @Test
+    @DisplayName("A parallel descriptor scan should return the JARs in input order")
+    public void testParallelScanOrder() throws IOException {
+        List<String> moduleIds = List.of("core", "economy", "music", "shop");
+        List<Path> jars = new ArrayList<>();
+        for (String moduleId : moduleIds) {
+            deploy(moduleId);
+            jars.add(this.modulesDirectory.resolve(moduleId + ".jar"));
+        }
+
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, null) {
+            @Override
+            protected ModuleDescriptor loadModuleDescriptor(Path jarPath) {
+                // The first JARs complete last
+                sleep(Duration.ofMillis(50L * (moduleIds.size() - jars.indexOf(jarPath))));
+                return super.loadModuleDescriptor(jarPath);
+            }
+        };
+        loader.setScanParallelism(moduleIds.size());
+
+        List<String> scanned = loader.scanModuleDescriptors(jars).stream()
+                .map(descriptor -> descriptor.descriptor().id())
+                .toList();
+        assertEquals(moduleIds, scanned, "Descriptors should be in input order");
+    }
+
+    @Test
+    @DisplayName("A parallel descriptor scan should report unreadable JARs and propagate unexpected errors")
+    public void testParallelScanErrors() throws IOException {
+        deploy("core");
+        Path corrupt = Files.writeString(this.modulesDirectory.resolve("corrupt.jar"), "not a jar");
+        List<Path> jars = List.of(this.modulesDirectory.resolve("core.jar"), corrupt);
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        loader.setScanParallelism(2);
+        List<DefaultModuleLoader.ScannedDescriptor> scanned = loader.scanModuleDescriptors(jars);
+        assertEquals("core", scanned.get(0).descriptor().id(), "Readable JAR should be scanned");
+        assertNotNull(scanned.get(1).error(), "Unreadable JAR should be reported");
+
+        DefaultModuleLoader failing = new DefaultModuleLoader(this.modulesDirectory, null) {
+            @Override
+            protected ModuleDescriptor loadModuleDescriptor(Path jarPath) {
+                throw new IllegalStateException("scan failed");
+            }
+        };
+        failing.setScanParallelism(2);
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> failing.scanModuleDescriptors(jars),
+                "Unexpected error should be propagated");
+        assertEquals("scan failed", error.getMessage(), "Original error should be propagated");
+    }
+
+    @Test
+    @DisplayName("A module overrunning its deadline should fail without blocking its wave")
+    public void testTimeout() throws IOException {
+        ON_ENABLE.put("slow", () -> await(new CountDownLatch(1)));
+
+        DefaultModuleLoader loader = createLoader(2, Duration.ofMillis(200));
+        deploy("slow");
+        deploy("music");
+        deploy("shop", "slow");
+        loader.loadModules();
+
+        assertEquals(1, loader.enableModules(), "Only the module in time should be enabled");
+        assertTrue(loader.getModule("music").isEnabled(), "Module in time should be enabled");
+        assertFalse(loader.getModule("shop").isEnabled(), "Dependent of a timed out module should not be enabled");
+    }
+
+    @Test
+    @DisplayName("A failed module should skip its dependents and be reported on shutdown")
+    public void testFailurePropagation() throws IOException {
+        ON_ENABLE.put("broken", () -> {
+            throw new IllegalStateException("broken");
+        });
+        ON_DISABLE.put("hung", () -> await(new CountDownLatch(1)));
+
+        DefaultModuleLoader loader = createLoader(2, Duration.ofMillis(200));
+        deploy("broken");
+        deploy("shop", "broken");
+        deploy("hung");
+        loader.loadModules();
+
+        assertEquals(1, loader.enableModules(), "Only the independent module should be enabled");
+        assertFalse(loader.getModule("shop").isEnabled(), "Dependent of a failed module should not be enabled");
+
+        ShutdownReport report = loader.disableAllModules();
+        assertEquals(List.of("hung"), report.timedOut(), "Hung module should be reported");
+    }
+
+    @Test
+    @DisplayName("A module ignoring interrupts should not hold the modules queued behind it")
+    public void testUninterruptibleModule() throws IOException {
+        CountDownLatch release = new CountDownLatch(1);
+        ON_DISABLE.put("hung", () -> {
+            while (release.getCount() > 0) {
+                Thread.onSpinWait();
+            }
+        });
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofMillis(200));
+        deploy("hung");
+        deploy("other");
+        loader.loadModules();
+        assertEquals(2, loader.enableModules(), "Every module should be enabled");
+
+        long start = System.nanoTime();
+        ShutdownReport report = loader.disableAllModules();
+        release.countDown();
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3), "Shutdown should not wait for the hung module");
+        assertEquals("hung", report.timedOut().get(0), "Hung module should be reported");
+        assertEquals(2, report.disabled().size() + report.timedOut().size(), "Queued module should be reported");
+    }
+
+    @Test
+    @DisplayName("A module enabled after its deadline should be disabled again")
+    public void testLateEnable() throws IOException {
+        ON_ENABLE.put("slow", () -> spin(Duration.ofMillis(400)));
+
+        DefaultModuleLoader loader = createLoader(2, Duration.ofMillis(200));
+        deploy("slow");
+        deploy("shop", "slow");
+        loader.loadModules();
+        assertEquals(0, loader.enableModules(), "No module should be enabled in time");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!ENABLED.contains("slow") || loader.getModule("slow").isEnabled()) {
+            assertTrue(System.nanoTime() < deadline, "Late module should be disabled");
+            Thread.onSpinWait();
+        }
+        assertFalse(loader.getModule("shop").isEnabled(), "Dependent of a late module should not be enabled");
+    }
+
+    @Test
+    @DisplayName("A module overrunning its disable should not be unloaded before it returns")
+    public void testLateDisable() throws IOException {
+        AtomicBoolean disabling = new AtomicBoolean();
+        AtomicBoolean unloadedWhileDisabling = new AtomicBoolean();
+        ON_DISABLE.put("hung", () -> {
+            disabling.set(true);
+            spin(Duration.ofMillis(450));
+            disabling.set(false);
+        });
+        ON_UNLOAD.put("hung", () -> unloadedWhileDisabling.set(disabling.get()));
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofMillis(300));
+        deploy("hung");
+        loader.loadModules();
+        assertEquals(1, loader.enableModules(), "Module should be enabled");
+
+        loader.unloadAllModules();
+        assertNull(loader.getModule("hung"), "Module should be unloaded once its disable returned");
+        assertFalse(unloadedWhileDisabling.get(), "Module should not be unloaded while disabling");
+    }
+
+    @Test
+    @DisplayName("A blue/green reload should close the previous version only once its commands drained")
+    public void testReloadDrainsCommands() throws Exception {
+        DefaultCommandRegistry registry = new DefaultCommandRegistry(null);
+        Bot bot = botWith(registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        COMMANDS.put("core", new BlockingCommand(started, release));
+
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, bot);
+        loader.setBlueGreenReload(true);
+        loader.setReloadDrainTimeout(Duration.ofSeconds(5));
+        deploy("core");
+        loader.loadModules();
+        assertEquals(1, loader.enableModules(), "Module should be enabled");
+        AbstractModule previous = (AbstractModule) loader.getModule("core");
+
+        SlashCommandInteractionEvent event = mock(SlashCommandInteractionEvent.class);
+        when(event.getName()).thenReturn("blocking");
+        CompletableFuture.runAsync(() -> registry.dispatch(event));
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Command should start");
+        assertEquals(1, previous.getInFlightExecutions(), "Command should be in flight");
+
+        CompletableFuture<Boolean> reload = CompletableFuture.supplyAsync(() -> loader.reloadModule("core"));
+        assertThrows(TimeoutException.class, () -> reload.get(300, TimeUnit.MILLISECONDS), "Reload should wait for the command");
+        assertNotSame(previous, loader.getModule("core"), "New version should already serve the module");
+
+        release.countDown();
+        assertTrue(reload.get(5, TimeUnit.SECONDS), "Reload should complete once the command drained");
+        assertEquals(0, previous.getInFlightExecutions(), "Previous version should be drained");
+    }
+
+    @Test
+    @DisplayName("An invalid activation schedule should enable the module eagerly")
+    public void testInvalidActivationSchedule() throws IOException {
+        writeJar("core", "id: core\nname: core\nmain: " + StubModule.class.getName() + "\nactivation:\n  schedule: 30 minutes\n");
+        deploy("music");
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        loader.loadModules();
+
+        assertEquals(2, loader.enableModules(), "Invalid schedule should not abort the startup");
+        assertTrue(loader.getModule("core").isEnabled(), "Module should be enabled eagerly");
+    }
+
+    @Test
+    @DisplayName("A module failing to load should still have its phases timed")
+    public void testFailedLoadTimings() throws IOException {
+        writeJar("broken", "id: broken\nname: broken\nmain: com.example.MissingModule\n");
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        loader.loadModules();
+
+        assertNull(loader.getModule("broken"), "Module should not be loaded");
+        ModuleTimings timings = loader.getModuleTimings("broken");
+        assertNotNull(timings, "Failed module should have timings");
+        assertNotNull(timings.get(ModulePhase.DESCRIPTOR_READ), "Descriptor read should be timed");
+        assertNotNull(timings.get(ModulePhase.CLASS_LOADING), "Failed class loading should be timed");
+    }
+
+    @Test
+    @DisplayName("A module failing to unload should still have its unload timed")
+    public void testFailedUnloadTimings() throws IOException {
+        ON_UNLOAD.put("broken", () -> {
+            throw new IllegalStateException("broken");
+        });
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        deploy("broken");
+        loader.loadModules();
+
+        assertFalse(loader.unloadModule("broken"), "Unload should fail");
+        assertTrue(loader.getModuleTimings("broken").phases().containsKey(ModulePhase.UNLOAD), "Failed unload should be timed");
+    }
+
+    @Test
+    @DisplayName("An undeploy failing partway should restore the dependents it unloaded")
+    public void testFailedUndeploy() throws IOException {
+        ON_UNLOAD.put("economy", () -> {
+            throw new IllegalStateException("economy");
+        });
+
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        deploy("core");
+        deploy("economy", "core");
+        deploy("shop", "economy");
+        loader.loadModules();
+        loader.enableModules();
+        assertTrue(loader.getModule("shop").isEnabled(), "Dependent should be enabled");
+
+        assertFalse(loader.undeployModule(this.modulesDirectory.resolve("core.jar")), "Undeploy should fail");
+        assertNotNull(loader.getModule("shop"), "Unloaded dependent should be loaded again");
+        assertTrue(loader.getModule("shop").isEnabled(), "Unloaded dependent should be enabled again");
+        assertTrue(loader.getModule("core").isEnabled(), "Undeployed module should be kept");
+    }
+
+    @Test
+    @DisplayName("A deployed module declaring activation triggers should be activated lazily")
+    public void testLazyDeploy() throws IOException {
+        DefaultModuleLoader loader = createLoader(1, Duration.ofSeconds(5));
+        loader.setShadowCopies(true);
+        loader.loadModules();
+
+        writeJar("shop", "id: shop\nname: shop\nversion: 1.0.0\nmain: " + StubModule.class.getName() + "\nactivation:\n  schedule: PT1H\n");
+        assertTrue(loader.deployModule(this.modulesDirectory.resolve("shop.jar")), "Module should be deployed");
+        assertFalse(loader.getModule("shop").isEnabled(), "Module should wait for its trigger");
+
+        writeJar("shop", "id: shop\nname: shop\nversion: 2.0.0\nmain: " + StubModule.class.getName() + "\n");
+        assertTrue(loader.deployModule(this.modulesDirectory.resolve("shop.jar")), "Replaced JAR should be redeployed");
+        assertEquals("2.0.0", loader.getModule("shop").getModuleDescriptor().version(), "New version should be loaded");
+        loader.unloadAllModules();
+    }
+
+    @Test
+    @DisplayName("A lazy module enabled as a dependency should keep its real commands")
+    public void testLazyDependency() throws IOException {
+        DefaultCommandRegistry registry = new DefaultCommandRegistry(null);
+        Bot bot = botWith(registry);
+        Command command = new BlockingCommand(new CountDownLatch(1), new CountDownLatch(0));
+        COMMANDS.put("core", command);
+
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, bot);
+        writeJar("core", "id: core\nname: core\nmain: " + StubModule.class.getName() + "\nactivation:\n  commands: [blocking]\n");
+        deploy("economy", "core");
+        loader.loadModules();
+
+        assertTrue(loader.enableModule("economy"), "Eager dependent should enable its lazy dependency");
+        loader.enableModules();
+        assertTrue(loader.getModule("core").isEnabled(), "Dependency should stay enabled");
+        assertSame(command, registry.getCommand("blocking"), "Real command should not be replaced by an activation stub");
+    }
+
+    @Test
+    @DisplayName("A module failing to enable should not leave its commands registered")
+    public void testFailedEnableRollback() throws IOException {
+        DefaultCommandRegistry registry = new DefaultCommandRegistry(null);
+        COMMANDS.put("broken", new BlockingCommand(new CountDownLatch(1), new CountDownLatch(0)));
+        ON_ENABLE.put("broken", () -> {
+            throw new IllegalStateException("broken");
+        });
+
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, botWith(registry));
+        deploy("broken");
+        loader.loadModules();
+
+        assertFalse(loader.enableModule("broken"), "Module should fail to enable");
+        assertNull(registry.getCommand("blocking"), "Command should be unregistered");
+        assertFalse(loader.enableModule("broken"), "Retry should fail again");
+        assertNull(registry.getCommand("blocking"), "Retry should not leave the command registered");
+    }
+
+    private static Bot botWith(DefaultCommandRegistry registry) {
+        return (Bot) Proxy.newProxyInstance(Bot.class.getClassLoader(), new Class<?>[]{Bot.class},
+                (proxy, method, args) -> method.getName().equals("getCommandRegistry") ? registry : null);
+    }
+
+    private DefaultModuleLoader createLoader(int parallelism, Duration timeout) {
+        DefaultModuleLoader loader = new DefaultModuleLoader(this.modulesDirectory, null);
+        loader.setEnableParallelism(parallelism);
+        loader.setEnableTimeout(timeout);
+        loader.setShutdownParallelism(parallelism);
+        loader.setDisableTimeout(timeout);
+        return loader;
+    }
+
+    private static ModuleDescriptor descriptor(String moduleId, String... dependencies) {
+        return ModuleDescriptor.fromMap(Map.of("id", moduleId, "name", moduleId, "main", StubModule.class.getName(),
+                "dependencies", List.of(dependencies)));
+    }
+
+    private void deploy(String moduleId, String... dependencies) throws IOException {
+        StringBuilder descriptor = new StringBuilder()
+                .append("id: ").append(moduleId).append('\n')
+                .append("name: ").append(moduleId).append('\n')
+                .append("main: ").append(StubModule.class.getName()).append('\n')
+                .append("dependencies: [").append(String.join(", ", dependencies)).append("]\n");
+        writeJar(moduleId, descriptor.toString());
+    }
+
+    private void writeJar(String moduleId, String descriptor) throws IOException {
+        try (OutputStream out = Files.newOutputStream(this.modulesDirectory.resolve(moduleId + ".jar"));
+             JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new JarEntry("module.yml"));
+            jar.write(descriptor.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Latch was not released");
+            }
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    private static void spin(Duration duration) {
+        // Ignores interrupts, like a module stuck in a busy loop
+        long until = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public static class StubModule extends AbstractModule {
+
+        @Override
+        public void onEnable() {
+            if (COMMANDS.containsKey(getId())) {
+                registerCommand(COMMANDS.get(getId()));
+            }
+            ON_ENABLE.getOrDefault(getId(), () -> {}).run();
+            ENABLED.add(getId());
+        }
+
+        @Override
+        public void onDisable() {
+            ON_DISABLE.getOrDefault(getId(), () -> {}).run();
+        }
+
+        @Override
+        public void onUnload() {
+            ON_UNLOAD.getOrDefault(getId(), () -> {}).run();
+        }
+    }
+
+    private record BlockingCommand(CountDownLatch started, CountDownLatch release) implements Command {
+
+        @Override
+        public String getName() {
+            return "blocking";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Blocks until released";
+        }
+
+        @Override
+        public SlashCommandData buildCommandData() {
+            return Commands.slash(getName(), getDescription());
+        }
+
+        @Override
+        public void execute(SlashCommandInteractionEvent event) {
+            this.started.countDown();
+            await(this.release);
+        }
+    }
+}
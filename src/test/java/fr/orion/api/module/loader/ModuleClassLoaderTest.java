@@ -0,0 +1,58 @@
+package fr.orion.api.module.loader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModuleClassLoaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Classes of a dependency should be resolved from the loader owning their package")
+    public void testDependencyClasses() throws Exception {
+        String codec = Codec.class.getName();
+        // The platform loader does not see the test classes, so the codec is only found in the core JAR
+        ClassLoader parent = ClassLoader.getPlatformClassLoader();
+
+        try (ModuleClassLoader core = new ModuleClassLoader("core", writeJar("core", Codec.class), parent, List.of());
+             ModuleClassLoader economy = new ModuleClassLoader("economy", writeJar("economy"), parent, List.of(core));
+             ModuleClassLoader music = new ModuleClassLoader("music", writeJar("music"), parent, List.of())) {
+            Class<?> loaded = economy.loadClass(codec);
+            assertSame(core, loaded.getClassLoader(), "Class should be defined by its module");
+            assertSame(core.loadClass(codec), loaded, "Dependent should share the class of its dependency");
+            assertThrows(ClassNotFoundException.class, () -> music.loadClass(codec), "Class should not be visible without the dependency");
+        }
+    }
+
+    private Path writeJar(String moduleId, Class<?>... classes) throws IOException {
+        Path jarPath = this.directory.resolve(moduleId + ".jar");
+        try (OutputStream out = Files.newOutputStream(jarPath);
+             JarOutputStream jar = new JarOutputStream(out)) {
+            for (Class<?> type : classes) {
+                String entry = type.getName().replace('.', '/') + ".class";
+                try (InputStream bytes = getClass().getClassLoader().getResourceAsStream(entry)) {
+                    jar.putNextEntry(new JarEntry(entry));
+                    bytes.transferTo(jar);
+                    jar.closeEntry();
+                }
+            }
+        }
+        return jarPath;
+    }
+
+    public static class Codec {
+    }
+}
@@ -0,0 +1,66 @@
+package fr.orion.api.module.loader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModuleDependencyGraphTest {
+
+    private ModuleDependencyGraph createGraph() {
+        ModuleDependencyGraph graph = new ModuleDependencyGraph();
+        graph.add("core", List.of());
+        graph.add("economy", List.of("core"));
+        graph.add("shop", List.of("economy", "core"));
+        graph.add("music", List.of());
+        return graph;
+    }
+
+    @Test
+    @DisplayName("Dependents should be indexed in reverse")
+    public void testDependents() {
+        ModuleDependencyGraph graph = createGraph();
+
+        assertEquals(List.of("economy", "shop"), graph.getDependents("core"), "Direct dependents of core");
+        assertEquals(Set.of("economy", "shop"), graph.getTransitiveDependents("core"), "Transitive dependents of core");
+        assertTrue(graph.getDependents("music").isEmpty(), "Music has no dependent");
+    }
+
+    @Test
+    @DisplayName("Teardown order should put leaf modules first")
+    public void testTeardownOrder() {
+        ModuleDependencyGraph graph = createGraph();
+
+        assertEquals(List.of("shop", "economy", "core"), graph.getTeardownOrder("core"));
+        assertEquals(List.of(List.of("core", "music"), List.of("economy"), List.of("shop")), graph.getLevels());
+    }
+
+    @Test
+    @DisplayName("Removing a module should update the reverse index")
+    public void testRemove() {
+        ModuleDependencyGraph graph = createGraph();
+        graph.remove("shop");
+
+        assertEquals(List.of("economy"), graph.getDependents("core"));
+        assertTrue(graph.getDependencies("shop").isEmpty(), "Unloaded module has no dependencies");
+
+        graph.add("shop", List.of("economy"));
+        assertEquals(List.of("shop"), graph.getDependents("economy"), "Dependents should be restored on load");
+    }
+
+    @Test
+    @DisplayName("Dependencies on modules which are not loaded should be ignored")
+    public void testUnloadedDependency() {
+        ModuleDependencyGraph graph = new ModuleDependencyGraph();
+        graph.add("shop", List.of("economy"));
+
+        assertEquals(List.of(List.of("shop")), graph.getLevels());
+        assertEquals(List.of("shop"), graph.getDependents("economy"), "Dependents are known before the dependency is loaded");
+
+        graph.add("economy", List.of());
+        assertEquals(List.of(List.of("economy"), List.of("shop")), graph.getLevels(), "Levels should account for the loaded dependency");
+    }
+}
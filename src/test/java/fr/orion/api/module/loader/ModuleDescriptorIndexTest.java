@@ -0,0 +1,94 @@
+package fr.orion.api.module.loader;
+
+import fr.orion.api.module.ModuleDescriptor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModuleDescriptorIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("An unchanged JAR should be served from the index after a restart")
+    public void testHit() throws IOException {
+        Path jar = writeJar("shop-v1");
+        Path indexFile = saveIndex(jar);
+
+        ModuleDescriptorIndex.Entry entry = new ModuleDescriptorIndex(indexFile).lookup(jar);
+        assertNotNull(entry, "Unchanged JAR should be found");
+        assertEquals("shop", entry.descriptor().id(), "Descriptor should be restored");
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 60_000));
+        assertNotNull(new ModuleDescriptorIndex(indexFile).lookup(jar), "Touched JAR with the same content should be found");
+    }
+
+    @Test
+    @DisplayName("A changed JAR should invalidate its entry")
+    public void testStaleEntry() throws IOException {
+        Path jar = writeJar("shop-v1");
+        Path indexFile = saveIndex(jar);
+
+        // Same size, so only the content hash tells the versions apart
+        FileTime lastModified = Files.getLastModifiedTime(jar);
+        Files.writeString(jar, "shop-v2");
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(lastModified.toMillis() + 60_000));
+
+        assertNull(new ModuleDescriptorIndex(indexFile).lookup(jar), "Changed JAR should not be found");
+    }
+
+    @Test
+    @DisplayName("An index written in another format version should be ignored")
+    public void testFormatVersion() throws IOException {
+        Path jar = writeJar("shop-v1");
+        Path indexFile = saveIndex(jar);
+
+        String content = Files.readString(indexFile);
+        assertTrue(content.startsWith("version: "), "Index should start with its format version");
+        Files.writeString(indexFile, content.replaceFirst("version: \\d+", "version: 1"));
+
+        assertNull(new ModuleDescriptorIndex(indexFile).lookup(jar), "Outdated index should be ignored");
+    }
+
+    @Test
+    @DisplayName("A corrupt index should be ignored and rebuilt")
+    public void testCorruptIndex() throws IOException {
+        Path jar = writeJar("shop-v1");
+        Path indexFile = this.directory.resolve("index.yml");
+        Files.writeString(indexFile, "version: [unclosed\njars: {");
+
+        ModuleDescriptorIndex index = new ModuleDescriptorIndex(indexFile);
+        assertNull(index.lookup(jar), "Corrupt index should be ignored");
+
+        index.record(jar, descriptor());
+        index.save();
+        assertNotNull(new ModuleDescriptorIndex(indexFile).lookup(jar), "Index should be rebuilt");
+    }
+
+    private Path saveIndex(Path jar) {
+        Path indexFile = this.directory.resolve("index.yml");
+        ModuleDescriptorIndex index = new ModuleDescriptorIndex(indexFile);
+        index.record(jar, descriptor());
+        index.save();
+        return indexFile;
+    }
+
+    private Path writeJar(String content) throws IOException {
+        Path jar = this.directory.resolve("shop.jar");
+        Files.writeString(jar, content);
+        return jar;
+    }
+
+    private static ModuleDescriptor descriptor() {
+        return ModuleDescriptor.fromMap(Map.of("id", "shop", "name", "Shop", "main", "shop.ShopModule"));
+    }
+}
@@ -0,0 +1,51 @@
+package fr.orion.api.module.loader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedLibraryClassLoaderTest {
+
+    @TempDir
+    Path modulesDirectory;
+
+    @Test
+    @DisplayName("A conflicting library version should be skipped")
+    public void testVersionConflict() throws Exception {
+        writeLibrary("1.0.0");
+        writeLibrary("2.0.0");
+
+        try (SharedLibraryClassLoader loader = new SharedLibraryClassLoader(this.modulesDirectory, getClass().getClassLoader())) {
+            loader.addLibrary("shop", "com.example:codec:1.0.0");
+            loader.addLibrary("music", "com.example:codec:2.0.0");
+            loader.addLibrary("economy", "com.example:codec:1.0.0");
+
+            assertEquals(1, loader.getURLs().length, "Only the first version should be loaded");
+            try (InputStream version = loader.getResourceAsStream("version.txt")) {
+                assertEquals("1.0.0", new String(version.readAllBytes(), StandardCharsets.UTF_8), "First version should be used");
+            }
+        }
+    }
+
+    private void writeLibrary(String version) throws IOException {
+        Path directory = this.modulesDirectory.resolve("libraries/com/example/codec").resolve(version);
+        Files.createDirectories(directory);
+        try (OutputStream out = Files.newOutputStream(directory.resolve("codec-" + version + ".jar"));
+             JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new JarEntry("version.txt"));
+            jar.write(version.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+    }
+}